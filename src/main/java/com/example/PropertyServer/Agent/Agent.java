@@ -2,26 +2,47 @@ package com.example.PropertyServer.Agent;
 
 import com.example.PropertyServer.Location.Location;
 import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.VariantUrlsConverter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.Version;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Entity
 public class Agent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "agent_seq")
+    @GenericGenerator(name = "agent_seq",
+            strategy = "com.example.PropertyServer.Repositories.ReservableSequenceGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "agent_seq"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+            })
     private Integer id;
 
+    // A reserved id is set before the first save, so the null version is what marks the agent as new and makes
+    // save() persist it instead of merging, which would SELECT for a row that cannot exist yet.
+    @JsonIgnore
+    @Version
+    private Integer version;
+
     @NotEmpty(message = "name must not be null or empty")
     private String name;
 
@@ -31,6 +52,11 @@ public class Agent {
     private String telephoneNumber;
     private URL logoImage;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Convert(converter = VariantUrlsConverter.class)
+    @Column(length = 2048)
+    private Map<Integer, URL> logoVariants = new TreeMap<>();
+
     @JsonIgnore
     @OneToMany
     private List<Property> properties = new ArrayList<>();
@@ -93,6 +119,14 @@ public class Agent {
         this.logoImage = logoImage;
     }
 
+    public Map<Integer, URL> getLogoVariants() {
+        return logoVariants;
+    }
+
+    public void setLogoVariants(Map<Integer, URL> logoVariants) {
+        this.logoVariants = logoVariants;
+    }
+
     public List<Property> getProperties() {
         return properties;
     }
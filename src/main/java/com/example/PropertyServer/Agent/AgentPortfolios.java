@@ -0,0 +1,108 @@
+package com.example.PropertyServer.Agent;
+
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Repositories.PropertySearchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+public class AgentPortfolios {
+
+    @Autowired
+    PropertySearchRepository propertySearchRepository;
+
+    private final Map<Integer, Listing> listings = new HashMap<>();
+    private final Map<Integer, Portfolio> portfolios = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        listings.clear();
+        portfolios.clear();
+        for (Object[] row : propertySearchRepository.portfolioRows(RentalProperty.class, "monthlyRent"))
+            add(row, true);
+        for (Object[] row : propertySearchRepository.portfolioRows(SaleProperty.class, "price"))
+            add(row, false);
+    }
+
+    public synchronized void update(Property property) {
+        if (property.getId() == null)
+            return;
+        Integer agentId = property.getAgent() == null ? null : property.getAgent().getId();
+        boolean rental = property instanceof RentalProperty;
+        int amount = rental ? ((RentalProperty) property).getMonthlyRent() : ((SaleProperty) property).getPrice();
+        apply(new Listing(property.getId(), agentId, rental, property.getBedrooms(), amount));
+    }
+
+    public synchronized AgentStats stats(int agentId) {
+        Portfolio portfolio = portfolios.get(agentId);
+        if (portfolio == null)
+            return new AgentStats(agentId, 0, 0, null, null, Map.of());
+        return new AgentStats(agentId, portfolio.rentals, portfolio.sales,
+                portfolio.sales == 0 ? null : (double) portfolio.priceTotal / portfolio.sales,
+                portfolio.rentals == 0 ? null : (double) portfolio.rentTotal / portfolio.rentals,
+                new TreeMap<>(portfolio.bedrooms));
+    }
+
+    private void add(Object[] row, boolean rental) {
+        apply(new Listing((Integer) row[0], (Integer) row[1], rental, (Integer) row[2], (Integer) row[3]));
+    }
+
+    private void apply(Listing listing) {
+        Listing previous = listings.put(listing.id, listing);
+        if (previous != null)
+            contribute(previous, -1);
+        contribute(listing, 1);
+    }
+
+    private void contribute(Listing listing, int sign) {
+        if (listing.agentId == null)
+            return;
+        Portfolio portfolio = portfolios.computeIfAbsent(listing.agentId, key -> new Portfolio());
+        if (listing.rental) {
+            portfolio.rentals += sign;
+            portfolio.rentTotal += sign * (long) listing.amount;
+        } else {
+            portfolio.sales += sign;
+            portfolio.priceTotal += sign * (long) listing.amount;
+        }
+        long bedrooms = portfolio.bedrooms.merge(listing.bedrooms, (long) sign, Long::sum);
+        if (bedrooms == 0)
+            portfolio.bedrooms.remove(listing.bedrooms);
+        if (portfolio.rentals == 0 && portfolio.sales == 0)
+            portfolios.remove(listing.agentId);
+    }
+
+    private static class Listing {
+
+        private final int id;
+        private final Integer agentId;
+        private final boolean rental;
+        private final int bedrooms;
+        private final int amount;
+
+        private Listing(int id, Integer agentId, boolean rental, int bedrooms, int amount) {
+            this.id = id;
+            this.agentId = agentId;
+            this.rental = rental;
+            this.bedrooms = bedrooms;
+            this.amount = amount;
+        }
+    }
+
+    private static class Portfolio {
+
+        private long rentals;
+        private long sales;
+        private long rentTotal;
+        private long priceTotal;
+        private final Map<Integer, Long> bedrooms = new HashMap<>();
+    }
+}
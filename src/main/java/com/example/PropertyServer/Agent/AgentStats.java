@@ -0,0 +1,53 @@
+package com.example.PropertyServer.Agent;
+
+import java.util.Map;
+
+public class AgentStats {
+
+    private final int agentId;
+    private final long listings;
+    private final long rentals;
+    private final long sales;
+    private final Double averagePrice;
+    private final Double averageMonthlyRent;
+    private final Map<Integer, Long> bedrooms;
+
+    public AgentStats(int agentId, long rentals, long sales, Double averagePrice, Double averageMonthlyRent,
+            Map<Integer, Long> bedrooms) {
+        this.agentId = agentId;
+        this.listings = rentals + sales;
+        this.rentals = rentals;
+        this.sales = sales;
+        this.averagePrice = averagePrice;
+        this.averageMonthlyRent = averageMonthlyRent;
+        this.bedrooms = bedrooms;
+    }
+
+    public int getAgentId() {
+        return agentId;
+    }
+
+    public long getListings() {
+        return listings;
+    }
+
+    public long getRentals() {
+        return rentals;
+    }
+
+    public long getSales() {
+        return sales;
+    }
+
+    public Double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public Double getAverageMonthlyRent() {
+        return averageMonthlyRent;
+    }
+
+    public Map<Integer, Long> getBedrooms() {
+        return bedrooms;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.PropertyServer.Config;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.SpecificationBuilders.PropertySpecificationBuilder;
 import com.example.PropertyServer.SpecificationBuilders.RentalPropertySpecificationBuilder;
 import com.example.PropertyServer.SpecificationBuilders.SalePropertySpecificationBuilder;
 import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
@@ -19,7 +20,7 @@ public class BeansConfig {
 
     @Bean
     public SpecificationBuilder<Property> getSpecificationBuilder() {
-        return new SpecificationBuilder<Property>();
+        return new PropertySpecificationBuilder();
     }
 
     @Bean
@@ -0,0 +1,39 @@
+package com.example.PropertyServer.Config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Keeps the entity manager open while GET and HEAD responses are rendered, so lazy associations can still be
+ * serialised. Writes get no request-wide entity manager: their repository calls each take a connection only for
+ * their own short transaction, and none is held while images are uploaded.
+ */
+public class ReadOnlyEntityManagerInViewInterceptor extends OpenEntityManagerInViewInterceptor {
+
+    @Override
+    public void preHandle(WebRequest request) {
+        if (isRead(request))
+            super.preHandle(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(WebRequest request) {
+        if (isRead(request))
+            super.afterConcurrentHandlingStarted(request);
+    }
+
+    @Override
+    public void afterCompletion(WebRequest request, Exception ex) {
+        if (isRead(request))
+            super.afterCompletion(request, ex);
+    }
+
+    private static boolean isRead(WebRequest request) {
+        if (!(request instanceof ServletWebRequest))
+            return true;
+        HttpMethod method = ((ServletWebRequest) request).getHttpMethod();
+        return method == HttpMethod.GET || method == HttpMethod.HEAD;
+    }
+}
@@ -19,7 +19,11 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
+        // Saved searches are registered and dropped by the public clients that watch them, without a session to protect.
+        http.csrf().ignoringAntMatchers("/searches", "/searches/**");
         http.authorizeRequests()
+                .antMatchers(HttpMethod.POST, "/searches").permitAll()
+                .antMatchers(HttpMethod.DELETE, "/searches/*").permitAll()
                 .antMatchers(HttpMethod.POST, "/**").hasRole("ADMIN")
                 .antMatchers(HttpMethod.PATCH, "/**").hasRole("ADMIN")
                 .and().httpBasic(Customizer.withDefaults());
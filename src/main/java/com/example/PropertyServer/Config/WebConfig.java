@@ -0,0 +1,26 @@
+package com.example.PropertyServer.Config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        if (factory == null)
+            return;
+        ReadOnlyEntityManagerInViewInterceptor interceptor = new ReadOnlyEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(factory);
+        registry.addWebRequestInterceptor(interceptor);
+    }
+}
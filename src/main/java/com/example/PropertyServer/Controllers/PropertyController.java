@@ -3,38 +3,77 @@ package com.example.PropertyServer.Controllers;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentStats;
 import com.example.PropertyServer.ApiErrors.ApiError;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
+import com.example.PropertyServer.Exceptions.ImageQueueFullException;
+import com.example.PropertyServer.Exceptions.InvalidCursorException;
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
+import com.example.PropertyServer.Exceptions.SavedSearchNotFoundException;
+import com.example.PropertyServer.Exceptions.SearchRejectedException;
+import com.example.PropertyServer.Import.ImportReader;
+import com.example.PropertyServer.Import.ImportReport;
+import com.example.PropertyServer.Pagination.CursorPage;
+import com.example.PropertyServer.Pagination.MultiGetResult;
+import com.example.PropertyServer.Pagination.SortOrder;
+import com.example.PropertyServer.Property.ImageUploadStatus;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.RentalProperty;
 import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Search.FacetCounts;
+import com.example.PropertyServer.Search.PostcodeCount;
+import com.example.PropertyServer.Search.SavedSearch;
+import com.example.PropertyServer.Search.SearchAdmission;
+import com.example.PropertyServer.Search.SearchParameters;
 import com.example.PropertyServer.Services.AgentService;
+import com.example.PropertyServer.Services.PropertyImportService;
 import com.example.PropertyServer.Services.PropertyService;
+import com.example.PropertyServer.Services.SavedSearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -47,18 +86,108 @@ public class PropertyController {
     @Autowired
     private AgentService agentService;
 
+    @Autowired
+    private SavedSearchService savedSearchService;
+
+    @Autowired
+    private PropertyImportService propertyImportService;
+
+    @Autowired
+    private SearchAdmission searchAdmission;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private static final String FORCED_PAGINATION_HEADER = "X-Pagination-Forced";
+
+    private static final String SEARCH_TOKEN_HEADER = "X-Search-Token";
+
     private final AmazonS3 s3 = AmazonS3ClientBuilder.defaultClient();
 
     private final String S3_BUCKET_NAME;
 
+    @Value("${search.page.default-limit:50}")
+    private int defaultPageLimit;
+
+    @Value("${search.page.max-limit:500}")
+    private int maxPageLimit;
+
+    @Value("${search.geo.default-radius-km:5}")
+    private double defaultRadiusKm;
+
+    @Value("${search.geo.max-radius-km:100}")
+    private double maxRadiusKm;
+
     public PropertyController(@Value("${s3.bucket.name}") String bucketname) {
         this.S3_BUCKET_NAME = bucketname;
     }
 
     @GetMapping("/properties")
-    public List<Property> getAllProperties(@RequestParam Map<String, String> searchParameters) {
-        return propertyService.getAllProperties(searchParameters);
+    public ResponseEntity<?> getAllProperties(@RequestParam Map<String, String> searchParameters,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean unpaged, @RequestParam(required = false) String near,
+            @RequestParam(required = false) Double radius, @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String sort, @RequestParam(required = false) String q) {
+        Map<String, String> filters = SearchParameters.filters(searchParameters);
+        checkSortable(sort, near, q, fields, unpaged);
+        try (SearchAdmission.Ticket ticket = searchAdmission.admit(filters)) {
+            if (near != null)
+                return ResponseEntity.ok(propertyService.getAllPropertiesNear(filters, near, radius(radius),
+                        ticket.limit(pageLimit(limit)), after));
+            if (q != null)
+                return ResponseEntity.ok(propertyService.getAllPropertiesMatching(filters, q,
+                        ticket.limit(pageLimit(limit)), after));
+            if (fields != null)
+                return ResponseEntity.ok(propertyService.getAllProperties(filters, fields,
+                        ticket.limit(pageLimit(limit)), after));
+            boolean forced = ticket.forcePagination(unpaged);
+            if (unpaged && !forced)
+                return ResponseEntity.ok(propertyService.getAllProperties(filters));
+            return page(propertyService.getAllProperties(filters, ticket.limit(pageLimit(limit)), after,
+                    SortOrder.parse(sort)), forced);
+        }
     }
+
+    @GetMapping(value = "/properties", params = SearchParameters.IDS)
+    public MultiGetResult<Property> getProperties(@RequestParam List<Integer> ids) {
+        return propertyService.getProperties(idList(ids));
+    }
+
+    @GetMapping(value = "/properties", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProperties(@RequestParam Map<String, String> searchParameters) {
+        Map<String, String> filters = SearchParameters.filters(searchParameters);
+        checkStreamable(searchParameters);
+        return ndjson(filters, out -> propertyService.streamAllProperties(filters, property -> writeLine(out, property)));
+    }
+
+    @RequestMapping(value = "/properties", method = RequestMethod.HEAD)
+    public ResponseEntity<Map<String, Long>> headProperties(@RequestParam Map<String, String> params) {
+        return countProperties(params);
+    }
+
+    @GetMapping(value = "/properties", params = SearchParameters.COUNT + "=true")
+    public ResponseEntity<Map<String, Long>> countProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkCountable(params);
+        return totalCount(admitted(filters, () -> propertyService.countProperties(filters)));
+    }
+
+    @GetMapping(value = "/properties", params = SearchParameters.EXISTS + "=true")
+    public Map<String, Boolean> existsProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkCountable(params);
+        return Collections.singletonMap("exists", admitted(filters, () -> propertyService.existsProperties(filters)));
+    }
+
+    @GetMapping("/properties/facets")
+    public FacetCounts getFacets(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkFacetable(params);
+        return admitted(filters, () -> propertyService.getFacets(filters));
+    }
+
     @GetMapping("/properties/{id}")
     public ResponseEntity<Property> getProperty(@PathVariable int id) throws EntityNotFoundException {
             Property property = propertyService.getProperty(id);
@@ -75,14 +204,156 @@ public class PropertyController {
         return propertyService.addImagesToProperty(id, images);
     }
 
+    @GetMapping("/properties/{id}/images/status")
+    public ImageUploadStatus getImageStatus(@PathVariable int id) {
+        return propertyService.getImageStatus(id);
+    }
+
     @GetMapping("/rentalProperties")
-    public List<RentalProperty> getAllRentalProperties(@RequestParam Map<String, String> params) {
-        return propertyService.getAllRentalProperties(params);
+    public ResponseEntity<?> getAllRentalProperties(@RequestParam Map<String, String> params,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean unpaged, @RequestParam(required = false) String near,
+            @RequestParam(required = false) Double radius, @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String sort, @RequestParam(required = false) String q) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkSortable(sort, near, q, fields, unpaged);
+        try (SearchAdmission.Ticket ticket = searchAdmission.admit(filters)) {
+            if (near != null)
+                return ResponseEntity.ok(propertyService.getAllRentalPropertiesNear(filters, near, radius(radius),
+                        ticket.limit(pageLimit(limit)), after));
+            if (q != null)
+                return ResponseEntity.ok(propertyService.getAllRentalPropertiesMatching(filters, q,
+                        ticket.limit(pageLimit(limit)), after));
+            if (fields != null)
+                return ResponseEntity.ok(propertyService.getAllRentalProperties(filters, fields,
+                        ticket.limit(pageLimit(limit)), after));
+            boolean forced = ticket.forcePagination(unpaged);
+            if (unpaged && !forced)
+                return ResponseEntity.ok(propertyService.getAllRentalProperties(filters));
+            return page(propertyService.getAllRentalProperties(filters, ticket.limit(pageLimit(limit)), after,
+                    SortOrder.parse(sort)), forced);
+        }
+    }
+
+    @GetMapping(value = "/rentalProperties", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRentalProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkStreamable(params);
+        return ndjson(filters, out -> propertyService.streamAllRentalProperties(filters, property -> writeLine(out, property)));
+    }
+
+    @RequestMapping(value = "/rentalProperties", method = RequestMethod.HEAD)
+    public ResponseEntity<Map<String, Long>> headRentalProperties(@RequestParam Map<String, String> params) {
+        return countRentalProperties(params);
+    }
+
+    @GetMapping(value = "/rentalProperties", params = SearchParameters.COUNT + "=true")
+    public ResponseEntity<Map<String, Long>> countRentalProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkCountable(params);
+        return totalCount(admitted(filters, () -> propertyService.countRentalProperties(filters)));
+    }
+
+    @GetMapping(value = "/rentalProperties", params = SearchParameters.EXISTS + "=true")
+    public Map<String, Boolean> existsRentalProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkCountable(params);
+        return Collections.singletonMap("exists", admitted(filters, () -> propertyService.existsRentalProperties(filters)));
     }
 
     @GetMapping("/saleProperties")
-    public List<SaleProperty> getAllSalesProperties(@RequestParam Map<String, String> params) {
-            return propertyService.getAllSaleProperties(params);
+    public ResponseEntity<?> getAllSalesProperties(@RequestParam Map<String, String> params,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean unpaged, @RequestParam(required = false) String near,
+            @RequestParam(required = false) Double radius, @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String sort, @RequestParam(required = false) String q) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkSortable(sort, near, q, fields, unpaged);
+        try (SearchAdmission.Ticket ticket = searchAdmission.admit(filters)) {
+            if (near != null)
+                return ResponseEntity.ok(propertyService.getAllSalePropertiesNear(filters, near, radius(radius),
+                        ticket.limit(pageLimit(limit)), after));
+            if (q != null)
+                return ResponseEntity.ok(propertyService.getAllSalePropertiesMatching(filters, q,
+                        ticket.limit(pageLimit(limit)), after));
+            if (fields != null)
+                return ResponseEntity.ok(propertyService.getAllSaleProperties(filters, fields,
+                        ticket.limit(pageLimit(limit)), after));
+            boolean forced = ticket.forcePagination(unpaged);
+            if (unpaged && !forced)
+                return ResponseEntity.ok(propertyService.getAllSaleProperties(filters));
+            return page(propertyService.getAllSaleProperties(filters, ticket.limit(pageLimit(limit)), after,
+                    SortOrder.parse(sort)), forced);
+        }
+    }
+
+    @GetMapping(value = "/saleProperties", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllSaleProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkStreamable(params);
+        return ndjson(filters, out -> propertyService.streamAllSaleProperties(filters, property -> writeLine(out, property)));
+    }
+
+    @RequestMapping(value = "/saleProperties", method = RequestMethod.HEAD)
+    public ResponseEntity<Map<String, Long>> headSaleProperties(@RequestParam Map<String, String> params) {
+        return countSaleProperties(params);
+    }
+
+    @GetMapping(value = "/saleProperties", params = SearchParameters.COUNT + "=true")
+    public ResponseEntity<Map<String, Long>> countSaleProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkCountable(params);
+        return totalCount(admitted(filters, () -> propertyService.countSaleProperties(filters)));
+    }
+
+    @GetMapping(value = "/saleProperties", params = SearchParameters.EXISTS + "=true")
+    public Map<String, Boolean> existsSaleProperties(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = SearchParameters.filters(params);
+        checkCountable(params);
+        return Collections.singletonMap("exists", admitted(filters, () -> propertyService.existsSaleProperties(filters)));
+    }
+
+    @GetMapping("/search/stats")
+    public Map<String, Object> getSearchStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(propertyService.getSearchStats());
+        stats.put("admission", searchAdmission.getStats());
+        return stats;
+    }
+
+    @GetMapping("/postcodes")
+    public CursorPage<PostcodeCount> getPostcodes(@RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after) {
+        return propertyService.getPostcodes(prefix, pageLimit(limit), after);
+    }
+
+    @PostMapping("/searches")
+    public ResponseEntity<SavedSearch> registerSearch(@RequestBody SavedSearch search, HttpServletRequest request) {
+        SavedSearch registered = savedSearchService.register(search, request.getRemoteAddr());
+        return ResponseEntity.status(HttpStatus.CREATED).header(SEARCH_TOKEN_HEADER, registered.getOwnerToken())
+                .body(registered);
+    }
+
+    @GetMapping("/searches/{id}")
+    public SavedSearch getSearch(@PathVariable int id) {
+        return savedSearchService.getSearch(id);
+    }
+
+    @DeleteMapping("/searches/{id}")
+    public ResponseEntity<Void> deleteSearch(@PathVariable int id,
+            @RequestHeader(SEARCH_TOKEN_HEADER) String ownerToken) {
+        savedSearchService.deleteSearch(id, ownerToken);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/searches/{id}/matches")
+    public CursorPage<Property> getSearchMatches(@PathVariable int id, @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return savedSearchService.getMatches(id, pageLimit(limit), after);
+    }
+
+    @GetMapping(value = "/searches/{id}/matches", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSearchMatches(@PathVariable int id) {
+        return savedSearchService.subscribe(id);
     }
 
     @GetMapping("/agents")
@@ -90,6 +361,11 @@ public class PropertyController {
         return agentService.getAll();
     }
 
+    @GetMapping(value = "/agents", params = SearchParameters.IDS)
+    public MultiGetResult<Agent> getAgents(@RequestParam List<Integer> ids) {
+        return agentService.getAgents(idList(ids));
+    }
+
     @PostMapping("/agents")
     public ResponseEntity<Agent> addAgent(@RequestPart @Valid Agent agent, @RequestPart MultipartFile logo)
             throws IOException {
@@ -106,18 +382,46 @@ public class PropertyController {
         return agentService.getAgentProperties(id);
     }
 
+    @GetMapping("/agents/{id}/stats")
+    public AgentStats getAgentStats(@PathVariable int id) {
+        return agentService.getAgentStats(id);
+    }
+
     @PostMapping("/agents/{id}/properties/rentals")
     public ResponseEntity<RentalProperty> addRentalPropertyToAgent(@PathVariable int id,
             @RequestPart @Valid RentalProperty property, @RequestPart MultipartFile... images) throws IOException {
         RentalProperty persistedProperty = propertyService.createRentalProperty(property, id, images);
-        return new ResponseEntity<RentalProperty>(persistedProperty, HttpStatus.CREATED);
+        return ResponseEntity.accepted().location(imageStatusLink(persistedProperty)).body(persistedProperty);
     }
 
     @PostMapping("/agents/{id}/properties/sales")
     public ResponseEntity<SaleProperty> addSalesPropertyToAgent(@PathVariable int id,
             @RequestPart @Valid SaleProperty property, @RequestPart MultipartFile... images) throws IOException {
         SaleProperty newProperty = propertyService.createSaleProperty(property, id, images);
-        return new ResponseEntity<SaleProperty>(newProperty, HttpStatus.CREATED);
+        return ResponseEntity.accepted().location(imageStatusLink(newProperty)).body(newProperty);
+    }
+
+    private static URI imageStatusLink(Property property) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().path("/properties/{id}/images/status")
+                .buildAndExpand(property.getId()).toUri();
+    }
+
+    @PostMapping(value = "/agents/{id}/properties/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importNdjsonProperties(@PathVariable int id,
+            @RequestParam(name = PropertyImportService.KIND, required = false) String kind, InputStream body)
+            throws IOException {
+        return propertyImportService.importProperties(id, kind, ImportReader.ndjson(lines(body), objectMapper));
+    }
+
+    @PostMapping(value = "/agents/{id}/properties/import", consumes = ImportReader.CSV_MEDIA_TYPE)
+    public ImportReport importCsvProperties(@PathVariable int id,
+            @RequestParam(name = PropertyImportService.KIND, required = false) String kind, InputStream body)
+            throws IOException {
+        return propertyImportService.importProperties(id, kind, ImportReader.csv(lines(body), objectMapper));
+    }
+
+    private static BufferedReader lines(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
     }
 
     @ExceptionHandler
@@ -145,6 +449,142 @@ public class PropertyController {
                 HttpStatus.NOT_FOUND.toString()), HttpStatus.NOT_FOUND);
     }
 
+    // The content type is fixed so that a rejected NDJSON stream still gets its JSON error body.
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleSearchRejected(SearchRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ApiError(Collections.singletonList(ex.getMessage()), HttpStatus.TOO_MANY_REQUESTS.toString()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleImageQueueFull(ImageQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiError(Collections.singletonList(ex.getMessage()), HttpStatus.SERVICE_UNAVAILABLE.toString()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleSavedSearchNotFound(SavedSearchNotFoundException ex) {
+        return new ResponseEntity<>(new ApiError(Collections.singletonList(ex.getMessage()),
+                HttpStatus.NOT_FOUND.toString()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleInvalidCursor(InvalidCursorException ex) {
+        return new ResponseEntity<>(new ApiError(Collections.singletonList(ex.getMessage()),
+                HttpStatus.BAD_REQUEST.toString()), HttpStatus.BAD_REQUEST);
+    }
+
+    // Admission happens on the thread that streams, so a body that never runs never holds a permit. A rejection is
+    // still thrown before anything is written and is turned into a 429 when the request is dispatched back.
+    private ResponseEntity<StreamingResponseBody> ndjson(Map<String, String> filters, StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+            SearchAdmission.Ticket ticket = searchAdmission.admit(filters);
+            try {
+                body.writeTo(out);
+            } finally {
+                ticket.close();
+            }
+        });
+    }
+
+    private <T> T admitted(Map<String, String> filters, Supplier<T> search) {
+        SearchAdmission.Ticket ticket = searchAdmission.admit(filters);
+        try {
+            return search.get();
+        } finally {
+            ticket.close();
+        }
+    }
+
+    private static ResponseEntity<?> page(Object page, boolean forced) {
+        if (!forced)
+            return ResponseEntity.ok(page);
+        return ResponseEntity.ok().header(FORCED_PAGINATION_HEADER, "true").body(page);
+    }
+
+    private void writeLine(OutputStream out, Object row) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ApiError> handleInvalidSearchParameter(InvalidSearchParameterException ex) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ApiError(Collections.singletonList(ex.getMessage()), HttpStatus.BAD_REQUEST.toString()));
+    }
+
+    private double radius(Double radius) {
+        if (radius == null)
+            return defaultRadiusKm;
+        if (radius <= 0 || radius > maxRadiusKm)
+            throw new InvalidSearchParameterException("radius must be between 0 and " + maxRadiusKm + " km.");
+        return radius;
+    }
+
+    /**
+     * Only the default paged listing can be sorted. The other modes have their own order (distance, relevance or id),
+     * so a sort there is rejected rather than silently ignored.
+     */
+    private static void checkSortable(String sort, String near, String q, List<String> fields, boolean unpaged) {
+        if (sort == null)
+            return;
+        String mode = near != null ? SearchParameters.NEAR : q != null ? SearchParameters.QUERY
+                : fields != null ? SearchParameters.FIELDS : unpaged ? SearchParameters.UNPAGED : null;
+        if (mode != null)
+            throw new InvalidSearchParameterException("sort cannot be combined with " + mode + ".");
+    }
+
+    private static void checkStreamable(Map<String, String> params) {
+        unsupported(params, "when streaming NDJSON", SearchParameters.SORT, SearchParameters.NEAR,
+                SearchParameters.RADIUS, SearchParameters.FIELDS, SearchParameters.QUERY);
+    }
+
+    private static void checkFacetable(Map<String, String> params) {
+        unsupported(params, "in facet counts", SearchParameters.NEAR, SearchParameters.RADIUS, SearchParameters.FIELDS,
+                SearchParameters.QUERY);
+    }
+
+    private static void checkCountable(Map<String, String> params) {
+        unsupported(params, "in count, exists or HEAD requests", SearchParameters.NEAR, SearchParameters.RADIUS,
+                SearchParameters.QUERY);
+    }
+
+    /**
+     * Rejects a search parameter the mode has no way to apply, rather than answering for the unfiltered set.
+     */
+    private static void unsupported(Map<String, String> params, String mode, String... names) {
+        for (String name : names) {
+            if (params.containsKey(name))
+                throw new InvalidSearchParameterException(name + " is not supported " + mode + ".");
+        }
+    }
+
+    private List<Integer> idList(List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > maxPageLimit || ids.contains(null))
+            throw new InvalidSearchParameterException("ids must list between 1 and " + maxPageLimit + " ids.");
+        return ids;
+    }
+
+    private static ResponseEntity<Map<String, Long>> totalCount(long count) {
+        return ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(count))
+                .body(Collections.singletonMap("count", count));
+    }
+
+    private int pageLimit(Integer limit) {
+        if (limit == null)
+            return defaultPageLimit;
+        return Math.max(1, Math.min(limit, maxPageLimit));
+    }
+
 
 
 
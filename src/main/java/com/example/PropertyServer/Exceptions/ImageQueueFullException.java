@@ -0,0 +1,15 @@
+package com.example.PropertyServer.Exceptions;
+
+public class ImageQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ImageQueueFullException(long retryAfterSeconds) {
+        super("Too many image uploads waiting, retry later.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.PropertyServer.Exceptions;
+
+public class ImageTooLargeException extends RuntimeException {
+
+    public ImageTooLargeException(long width, long height, long maxPixels) {
+        super("Image is " + width + "x" + height + " pixels, no more than " + maxPixels + " pixels allowed.");
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.PropertyServer.Exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Cursor \"" + cursor + "\" is not valid.");
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.PropertyServer.Exceptions;
+
+public class InvalidSearchParameterException extends RuntimeException {
+
+    public InvalidSearchParameterException(String message) {
+        super(message);
+    }
+}
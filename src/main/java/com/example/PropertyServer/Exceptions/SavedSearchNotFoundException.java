@@ -0,0 +1,8 @@
+package com.example.PropertyServer.Exceptions;
+
+public class SavedSearchNotFoundException extends RuntimeException {
+
+    public SavedSearchNotFoundException(int id) {
+        super("Saved search with id = " + id + " not found.");
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.PropertyServer.Exceptions;
+
+public class SearchRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public SearchRejectedException(long retryAfterSeconds) {
+        super("Too many unselective searches in progress, add filters or retry later.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.PropertyServer.Import;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public abstract class ImportReader {
+
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private static final Set<String> LOCATION_COLUMNS = Set.of("number", "street", "city", "county", "postCode");
+
+    protected final BufferedReader reader;
+    protected final ObjectMapper objectMapper;
+    private int line;
+
+    protected ImportReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    public static ImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new ImportReader(reader, objectMapper) {
+            @Override
+            protected ObjectNode parse(String text) {
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException ex) {
+                    throw new IllegalArgumentException("row is not valid JSON");
+                }
+                if (!node.isObject())
+                    throw new IllegalArgumentException("row must be a JSON object");
+                return (ObjectNode) node;
+            }
+        };
+    }
+
+    public static ImportReader csv(BufferedReader reader, ObjectMapper objectMapper) {
+        return new ImportReader(reader, objectMapper) {
+
+            private List<String> header;
+
+            @Override
+            protected ObjectNode parse(String text) {
+                List<String> cells = split(text);
+                if (header == null) {
+                    header = cells;
+                    return null;
+                }
+                if (cells.size() != header.size())
+                    throw new IllegalArgumentException("row has " + cells.size() + " columns, header has "
+                            + header.size());
+                ObjectNode node = objectMapper.createObjectNode();
+                ObjectNode location = node.putObject("location");
+                for (int i = 0; i < cells.size(); i++) {
+                    if (cells.get(i).isEmpty())
+                        continue;
+                    String column = header.get(i);
+                    (LOCATION_COLUMNS.contains(column) ? location : node).put(column, cells.get(i));
+                }
+                return node;
+            }
+        };
+    }
+
+    /**
+     * Returns the next row, or null at the end of the body. A row that cannot be parsed throws
+     * IllegalArgumentException; reading can carry on with the following line.
+     */
+    public ObjectNode next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank())
+                continue;
+            ObjectNode node = parse(text);
+            if (node != null)
+                return node;
+        }
+        return null;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    protected abstract ObjectNode parse(String text);
+
+    static List<String> split(String text) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"')
+                    cell.append(c);
+                else if (i + 1 < text.length() && text.charAt(i + 1) == '"')
+                    cell.append(text.charAt(++i));
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted)
+            throw new IllegalArgumentException("row has an unterminated quote");
+        cells.add(cell.toString().trim());
+        return cells;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.PropertyServer.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportReport {
+
+    private final int maxErrors;
+    private final List<ImportRowError> errors = new ArrayList<>();
+    private int rows;
+    private int imported;
+    private int rejected;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void row() {
+        rows++;
+    }
+
+    public void imported(int count) {
+        imported += count;
+    }
+
+    public void reject(int line, List<String> messages) {
+        rejected++;
+        if (errors.size() < maxErrors)
+            errors.add(new ImportRowError(line, messages));
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public boolean isErrorsTruncated() {
+        return rejected > errors.size();
+    }
+
+    public List<ImportRowError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.PropertyServer.Import;
+
+import java.util.List;
+
+public class ImportRowError {
+
+    private final int line;
+    private final List<String> messages;
+
+    public ImportRowError(int line, List<String> messages) {
+        this.line = line;
+        this.messages = messages;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.PropertyServer.Pagination;
+
+import com.example.PropertyServer.Exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortValue;
+    private final int id;
+
+    public Cursor(String sortValue, int id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = (sortValue == null ? "" : sortValue) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0)
+                throw new InvalidCursorException(token);
+            String sortValue = raw.substring(0, separator);
+            return new Cursor(sortValue.isEmpty() ? null : sortValue, Integer.parseInt(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
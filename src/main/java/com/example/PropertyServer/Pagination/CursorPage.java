@@ -0,0 +1,22 @@
+package com.example.PropertyServer.Pagination;
+
+import java.util.List;
+
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String next;
+
+    public CursorPage(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.PropertyServer.Pagination;
+
+import com.example.PropertyServer.Exceptions.InvalidCursorException;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Path;
+
+public class KeysetSpecification {
+
+    public static <T> Specification<T> after(Cursor cursor) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("id"), cursor.getId());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> after(Cursor cursor, SortOrder sort) {
+        if (sort == null)
+            return after(cursor);
+        Comparable value = sortValue(cursor, sort);
+        return (root, query, criteriaBuilder) -> {
+            Path<Comparable> path = sort.getField().path(root);
+            return criteriaBuilder.or(
+                    sort.isAscending() ? criteriaBuilder.greaterThan(path, value) : criteriaBuilder.lessThan(path, value),
+                    criteriaBuilder.and(criteriaBuilder.equal(path, value),
+                            criteriaBuilder.greaterThan(root.get("id"), cursor.getId())));
+        };
+    }
+
+    private static Comparable<?> sortValue(Cursor cursor, SortOrder sort) {
+        if (cursor.getSortValue() == null)
+            throw new InvalidCursorException(cursor.encode());
+        try {
+            return sort.getField().parse(cursor.getSortValue());
+        } catch (NumberFormatException ex) {
+            throw new InvalidCursorException(cursor.encode());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.PropertyServer.Pagination;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class MultiGetResult<T> {
+
+    private final List<T> content;
+    private final List<Integer> missing;
+
+    public MultiGetResult(List<T> content, List<Integer> missing) {
+        this.content = content;
+        this.missing = missing;
+    }
+
+    public static <T> MultiGetResult<T> of(Collection<Integer> ids, Collection<T> rows, Function<T, Integer> idOf) {
+        Map<Integer, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> content = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            T row = byId.get(id);
+            if (row == null)
+                missing.add(id);
+            else
+                content.add(row);
+        }
+        return new MultiGetResult<>(content, missing);
+    }
+
+    public static List<Integer> distinct(List<Integer> ids) {
+        return new ArrayList<>(new LinkedHashSet<>(ids));
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public List<Integer> getMissing() {
+        return missing;
+    }
+}
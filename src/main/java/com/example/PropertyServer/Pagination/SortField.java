@@ -0,0 +1,64 @@
+package com.example.PropertyServer.Pagination;
+
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.function.Function;
+
+public enum SortField {
+
+    BEDROOMS("bedrooms", null, Property::getBedrooms, "bedrooms"),
+    POSTCODE("postcode", null, property -> property.getLocation().getPostCode(), "location", "postCode"),
+    PRICE("price", SaleProperty.class, property -> ((SaleProperty) property).getPrice(), "price"),
+    MONTHLY_RENT("monthlyRent", RentalProperty.class, property -> ((RentalProperty) property).getMonthlyRent(),
+            "monthlyRent");
+
+    private final String name;
+    private final Class<? extends Property> subtype;
+    private final Function<Property, Comparable<?>> getter;
+    private final String[] path;
+
+    SortField(String name, Class<? extends Property> subtype, Function<Property, Comparable<?>> getter,
+            String... path) {
+        this.name = name;
+        this.subtype = subtype;
+        this.getter = getter;
+        this.path = path;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAvailableOn(Class<? extends Property> type) {
+        return subtype == null || subtype.isAssignableFrom(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <Y extends Comparable<? super Y>> Path<Y> path(Root<?> root) {
+        Path<?> result = root;
+        for (String attribute : path)
+            result = result.get(attribute);
+        return (Path<Y>) result;
+    }
+
+    public Comparable<?> valueOf(Property property) {
+        return getter.apply(property);
+    }
+
+    public Comparable<?> parse(String value) {
+        return this == POSTCODE ? value : Integer.valueOf(value);
+    }
+
+    public static SortField of(String name) {
+        return Arrays.stream(values())
+                .filter(field -> field.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new InvalidSearchParameterException("Sort on \"" + name + "\" not supported."));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.PropertyServer.Pagination;
+
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Property.Property;
+
+public class SortOrder {
+
+    private final SortField field;
+    private final boolean ascending;
+
+    public SortOrder(SortField field, boolean ascending) {
+        this.field = field;
+        this.ascending = ascending;
+    }
+
+    public SortField getField() {
+        return field;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public SortOrder checkAvailableOn(Class<? extends Property> type) {
+        if (!field.isAvailableOn(type))
+            throw new InvalidSearchParameterException("Sort on \"" + field.getName() + "\" not supported here.");
+        return this;
+    }
+
+    public static SortOrder parse(String sort) {
+        if (sort == null)
+            return null;
+        String[] parts = sort.split(",");
+        if (parts.length > 2)
+            throw new InvalidSearchParameterException("Sort \"" + sort + "\" is not valid.");
+        boolean ascending = parts.length == 1 || parts[1].equalsIgnoreCase("asc");
+        if (parts.length == 2 && !ascending && !parts[1].equalsIgnoreCase("desc"))
+            throw new InvalidSearchParameterException("Sort \"" + sort + "\" is not valid.");
+        return new SortOrder(SortField.of(parts[0]), ascending);
+    }
+
+    @Override
+    public String toString() {
+        return field.getName() + "," + (ascending ? "asc" : "desc");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.PropertyServer.Property;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImageUploadStatus {
+
+    // UNKNOWN is reported when no upload is tracked for the property, either because it has been evicted or because
+    // it ran before a restart; the images already attached are counted but nothing is claimed about the outcome.
+    public enum State { QUEUED, UPLOADING, COMPLETE, FAILED, UNKNOWN }
+
+    private final int propertyId;
+    private final int total;
+    private State state;
+    private int uploaded;
+    private final List<String> errors = new ArrayList<>();
+
+    public ImageUploadStatus(int propertyId, int total) {
+        this.propertyId = propertyId;
+        this.total = total;
+        this.state = total == 0 ? State.COMPLETE : State.QUEUED;
+    }
+
+    public static ImageUploadStatus untracked(Property property) {
+        ImageUploadStatus status = new ImageUploadStatus(property.getId(), property.getImages().size());
+        status.uploaded = status.total;
+        status.state = State.UNKNOWN;
+        return status;
+    }
+
+    public synchronized void started() {
+        state = State.UPLOADING;
+    }
+
+    public synchronized void uploaded() {
+        uploaded++;
+    }
+
+    public synchronized void failed(String error) {
+        errors.add(error);
+    }
+
+    public synchronized void finished() {
+        state = errors.isEmpty() ? State.COMPLETE : State.FAILED;
+    }
+
+    public synchronized boolean isFinished() {
+        return state == State.COMPLETE || state == State.FAILED;
+    }
+
+    public int getPropertyId() {
+        return propertyId;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getUploaded() {
+        return uploaded;
+    }
+
+    public synchronized List<String> getErrors() {
+        return new ArrayList<>(errors);
+    }
+}
@@ -3,31 +3,65 @@ package com.example.PropertyServer.Property;
 
 import com.example.PropertyServer.Agent.Agent;
 import com.example.PropertyServer.Location.Location;
+import com.example.PropertyServer.Repositories.ImageVariantsConverter;
+import com.example.PropertyServer.Search.PostcodeTrie;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Convert;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Inheritance;
+import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
+import javax.persistence.OrderColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Entity
 @Inheritance
+@Table(indexes = {
+        @Index(name = "idx_property_dtype_price", columnList = "dtype, price, id"),
+        @Index(name = "idx_property_dtype_monthly_rent", columnList = "dtype, monthlyRent, id"),
+        @Index(name = "idx_property_bedrooms", columnList = "bedrooms, id"),
+        @Index(name = "idx_property_type_bedrooms", columnList = "type, bedrooms, id"),
+        @Index(name = "idx_property_city_type_bedrooms", columnList = "city, type, bedrooms"),
+        @Index(name = "idx_property_post_code", columnList = "postCode, id")
+})
 public abstract class Property {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "property_seq")
+    @GenericGenerator(name = "property_seq",
+            strategy = "com.example.PropertyServer.Repositories.ReservableSequenceGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "property_seq"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+            })
     private Integer id;
 
+    @JsonIgnore
+    @Version
+    private Integer version;
+
     @NotNull(message = "property type must not be null")
     private PropertyType type;
 
@@ -38,11 +72,25 @@ public abstract class Property {
     @Min(value = 1, message = "property must have at least one bedroom")
     private int bedrooms;
 
+    // Ordered so that projections read the images back in the order imageVariants pairs with.
     @ElementCollection
+    @OrderColumn
+    @BatchSize(size = 50)
     private List<URL> images = new ArrayList<>();
 
+    // Grows with every image and configured width, so it is stored unbounded rather than in a sized VARCHAR.
+    @Convert(converter = ImageVariantsConverter.class)
+    @Lob
+    private List<Map<Integer, URL>> imageVariants = new ArrayList<>();
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double latitude;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double longitude;
+
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Agent agent;
 
     public Property() {
@@ -81,6 +129,24 @@ public abstract class Property {
         this.id = id;
     }
 
+    /**
+     * Postcodes are stored the way {@link PostcodeTrie#normalise} writes them, so the SQL filter, the in-memory index
+     * and {@code PropertyMatcher} all compare a normalised prefix against the same value.
+     */
+    @PrePersist
+    @PreUpdate
+    void normalisePostcode() {
+        if (location != null && location.getPostCode() != null)
+            location.setPostCode(PostcodeTrie.normalise(location.getPostCode()));
+    }
+
+    /**
+     * Drops the version an insert that was rolled back left behind, so the entity is persisted again as a new row.
+     */
+    public void clearVersion() {
+        this.version = null;
+    }
+
     public int getBedrooms() {
         return bedrooms;
     }
@@ -101,6 +167,41 @@ public abstract class Property {
         this.images.add(image);
     }
 
+    public void addImage(URL image, Map<Integer, URL> variants) {
+        List<Map<Integer, URL>> imageVariants = getImageVariants();
+        imageVariants.add(variants);
+        this.images.add(image);
+        this.imageVariants = imageVariants;
+    }
+
+    /**
+     * Downscaled copies of each image by width, in the same order as {@link #getImages()}. An image with no smaller
+     * sizes, or one added before variants were generated, has an empty entry.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public List<Map<Integer, URL>> getImageVariants() {
+        List<Map<Integer, URL>> variants = new ArrayList<>(imageVariants == null ? List.of() : imageVariants);
+        while (variants.size() < images.size())
+            variants.add(Map.of());
+        return variants;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public Agent getAgent() {
         return agent;
     }
@@ -0,0 +1,26 @@
+package com.example.PropertyServer.Repositories;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+@Component
+public class IdReservations {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    public int reserve(Class<?> entityClass) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        IdentifierGenerator generator = sessionFactory.getMetamodel().entityPersister(entityClass)
+                .getIdentifierGenerator();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Integer) generator.generate((SharedSessionContractImplementor) session, null);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.PropertyServer.Repositories;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import javax.persistence.Converter;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Converter
+public class ImageVariantsConverter extends JsonAttributeConverter<List<Map<Integer, URL>>> {
+
+    public ImageVariantsConverter() {
+        super(new TypeReference<ArrayList<Map<Integer, URL>>>() {
+        });
+    }
+
+    @Override
+    protected List<Map<Integer, URL>> empty() {
+        return new ArrayList<>();
+    }
+}
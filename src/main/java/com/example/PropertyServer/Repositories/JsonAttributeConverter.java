@@ -0,0 +1,46 @@
+package com.example.PropertyServer.Repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.AttributeConverter;
+
+/**
+ * Stores a small value object as JSON text in a single column, so reading it costs no statement beyond the row
+ * itself. Attributes using it must be replaced rather than mutated in place for changes to be flushed.
+ */
+public abstract class JsonAttributeConverter<T> implements AttributeConverter<T, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TypeReference<? extends T> type;
+
+    protected JsonAttributeConverter(TypeReference<? extends T> type) {
+        this.type = type;
+    }
+
+    protected abstract T empty();
+
+    @Override
+    public String convertToDatabaseColumn(T attribute) {
+        if (attribute == null)
+            return null;
+        try {
+            return MAPPER.writeValueAsString(attribute);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    @Override
+    public T convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty())
+            return empty();
+        try {
+            return MAPPER.readValue(column, type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+}
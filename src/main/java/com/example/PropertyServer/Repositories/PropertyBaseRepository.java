@@ -1,9 +1,15 @@
 package com.example.PropertyServer.Repositories;
 
 import com.example.PropertyServer.Property.Property;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.util.Optional;
+
 public interface PropertyBaseRepository<T extends Property> extends JpaRepository<T, Integer>, JpaSpecificationExecutor<T> {
     T findByAgentId(int i);
+
+    @EntityGraph(attributePaths = "images")
+    Optional<T> findWithImagesById(int id);
 }
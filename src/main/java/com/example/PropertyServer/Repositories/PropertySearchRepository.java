@@ -0,0 +1,163 @@
+package com.example.PropertyServer.Repositories;
+
+import com.example.PropertyServer.Pagination.SortOrder;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Search.FacetBuckets;
+import com.example.PropertyServer.Search.FacetRow;
+import com.example.PropertyServer.Search.PostcodeCount;
+import com.example.PropertyServer.Search.ProjectionField;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Repository
+public class PropertySearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T extends Property> List<T> findAll(Class<T> type, Specification<T> spec, int limit) {
+        return createQuery(type, spec).setMaxResults(limit).getResultList();
+    }
+
+    public <T extends Property> List<T> findAll(Class<T> type, Specification<T> spec, SortOrder sort, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+        Root<T> root = query.from(type);
+        where(query, root, spec, criteriaBuilder);
+        Path<?> path = sort.getField().path(root);
+        query.orderBy(sort.isAscending() ? criteriaBuilder.asc(path) : criteriaBuilder.desc(path),
+                criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    public <T extends Property> long count(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        where(query, root, spec, criteriaBuilder);
+        query.select(criteriaBuilder.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    public <T extends Property> boolean exists(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = criteriaBuilder.createQuery(Integer.class);
+        Root<T> root = query.from(type);
+        where(query, root, spec, criteriaBuilder);
+        query.select(root.get("id"));
+        return !entityManager.createQuery(query).setMaxResults(1).getResultList().isEmpty();
+    }
+
+    public <T extends Property> List<Tuple> findProjected(Class<T> type, Specification<T> spec,
+            List<ProjectionField> fields, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(type);
+        where(query, root, spec, criteriaBuilder);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (ProjectionField field : fields)
+            selections.add(field.path(root).alias(field.getName()));
+        query.multiselect(selections);
+        query.orderBy(criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    public Map<Integer, List<URL>> findImages(Collection<Integer> ids) {
+        Map<Integer, List<URL>> images = new HashMap<>();
+        if (ids.isEmpty())
+            return images;
+        entityManager.createQuery("select p.id, i from Property p join p.images i where p.id in :ids"
+                + " order by p.id, index(i)", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(row -> images.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((URL) row[1]));
+        return images;
+    }
+
+    public <T extends Property> Stream<T> stream(Class<T> type, Specification<T> spec, int fetchSize) {
+        return createQuery(type, spec)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    public List<PostcodeCount> countByPostcode(String prefix, String after, int limit) {
+        return entityManager.createQuery("select new com.example.PropertyServer.Search.PostcodeCount("
+                        + "p.location.postCode, count(p)) from Property p "
+                        + "where p.location.postCode like :prefix and p.location.postCode > :after "
+                        + "group by p.location.postCode order by p.location.postCode", PostcodeCount.class)
+                .setParameter("prefix", prefix + "%")
+                .setParameter("after", after == null ? "" : after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Counts matching rows per type, city, bedrooms and amount bucket. The amount is bucketed in the query so the
+     * result has a row per bucket rather than one per distinct price.
+     */
+    public <T extends Property> List<FacetRow> facetRows(Class<T> type, Specification<T> spec, String amount,
+            FacetBuckets buckets) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FacetRow> query = criteriaBuilder.createQuery(FacetRow.class);
+        Root<T> root = query.from(type);
+        where(query, root, spec, criteriaBuilder);
+        Path<Integer> amountPath = root.get(amount);
+        CriteriaBuilder.Case<Integer> bucket = criteriaBuilder.selectCase();
+        for (int i = 0; i < buckets.size() - 1; i++)
+            bucket = bucket.when(criteriaBuilder.lt(amountPath, buckets.upperBound(i)), i);
+        List<Expression<?>> groups = List.of(root.get("type"), root.get("location").get("city"),
+                root.get("bedrooms"), bucket.otherwise(buckets.size() - 1));
+        query.select(criteriaBuilder.construct(FacetRow.class, groups.get(0), groups.get(1), groups.get(2),
+                groups.get(3), criteriaBuilder.count(root)));
+        query.groupBy(groups);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    public List<Object[]> portfolioRows(Class<? extends Property> type, String amount) {
+        return entityManager.createQuery("select p.id, p.agent.id, p.bedrooms, p." + amount + " from "
+                + type.getSimpleName() + " p", Object[].class)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultList();
+    }
+
+    public void clear() {
+        entityManager.clear();
+    }
+
+    private <T extends Property> TypedQuery<T> createQuery(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+        Root<T> root = query.from(type);
+        where(query, root, spec, criteriaBuilder);
+        query.orderBy(criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query);
+    }
+
+    private static <T> void where(CriteriaQuery<?> query, Root<T> root, Specification<T> spec,
+            CriteriaBuilder criteriaBuilder) {
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null)
+            query.where(predicate);
+    }
+}
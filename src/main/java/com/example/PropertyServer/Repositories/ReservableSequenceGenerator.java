@@ -0,0 +1,24 @@
+package com.example.PropertyServer.Repositories;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.io.Serializable;
+
+/**
+ * A pooled sequence generator that keeps an id already reserved through {@link IdReservations}, so a row can be
+ * named (for example in object storage keys) before it is inserted.
+ */
+public class ReservableSequenceGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        if (object != null) {
+            Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+            if (id != null)
+                return id;
+        }
+        return super.generate(session, object);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.PropertyServer.Repositories;
+
+import com.example.PropertyServer.Search.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Integer> {
+}
@@ -0,0 +1,21 @@
+package com.example.PropertyServer.Repositories;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import javax.persistence.Converter;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Converter
+public class SearchFiltersConverter extends JsonAttributeConverter<Map<String, String>> {
+
+    public SearchFiltersConverter() {
+        super(new TypeReference<TreeMap<String, String>>() {
+        });
+    }
+
+    @Override
+    protected Map<String, String> empty() {
+        return new TreeMap<>();
+    }
+}
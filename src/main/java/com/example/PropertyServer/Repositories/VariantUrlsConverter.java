@@ -0,0 +1,22 @@
+package com.example.PropertyServer.Repositories;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import javax.persistence.Converter;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Converter
+public class VariantUrlsConverter extends JsonAttributeConverter<Map<Integer, URL>> {
+
+    public VariantUrlsConverter() {
+        super(new TypeReference<TreeMap<Integer, URL>>() {
+        });
+    }
+
+    @Override
+    protected Map<Integer, URL> empty() {
+        return new TreeMap<>();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.PropertyServer.Search;
+
+public class AdmissionStats {
+
+    private final long tableRows;
+    private final long cheap;
+    private final long expensive;
+    private final long forcedPagination;
+    private final long capped;
+    private final long rejected;
+    private final int running;
+
+    public AdmissionStats(long tableRows, long cheap, long expensive, long forcedPagination, long capped,
+            long rejected, int running) {
+        this.tableRows = tableRows;
+        this.cheap = cheap;
+        this.expensive = expensive;
+        this.forcedPagination = forcedPagination;
+        this.capped = capped;
+        this.rejected = rejected;
+        this.running = running;
+    }
+
+    public long getTableRows() {
+        return tableRows;
+    }
+
+    public long getCheap() {
+        return cheap;
+    }
+
+    public long getExpensive() {
+        return expensive;
+    }
+
+    public long getForcedPagination() {
+        return forcedPagination;
+    }
+
+    public long getCapped() {
+        return capped;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.PropertyServer.Search;
+
+import java.util.Arrays;
+
+public class FacetBuckets {
+
+    private final int[] bounds;
+
+    public FacetBuckets(int[] bounds) {
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+    }
+
+    public int size() {
+        return bounds.length + 1;
+    }
+
+    public int indexOf(int amount) {
+        int i = Arrays.binarySearch(bounds, amount);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * The exclusive upper bound of every bucket but the last.
+     */
+    public int upperBound(int index) {
+        return bounds[index];
+    }
+
+    public String label(int index) {
+        if (index == bounds.length)
+            return bounds.length == 0 ? "0+" : bounds[index - 1] + "+";
+        return (index == 0 ? 0 : bounds[index - 1]) + "-" + bounds[index];
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Property.PropertyType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class FacetCounts {
+
+    private final FacetBuckets priceBuckets;
+    private final FacetBuckets rentBuckets;
+    private final long[] priceCounts;
+    private final long[] rentCounts;
+
+    private long total;
+    private final Map<PropertyType, Long> type = new EnumMap<>(PropertyType.class);
+    private final Map<String, Long> city = new TreeMap<>();
+    private final Map<Integer, Long> bedrooms = new TreeMap<>();
+
+    public FacetCounts(FacetBuckets priceBuckets, FacetBuckets rentBuckets) {
+        this.priceBuckets = priceBuckets;
+        this.rentBuckets = rentBuckets;
+        this.priceCounts = new long[priceBuckets.size()];
+        this.rentCounts = new long[rentBuckets.size()];
+    }
+
+    public void add(FacetRow row, boolean rental) {
+        total += row.getCount();
+        addType(row.getType(), row.getCount());
+        addCity(row.getCity(), row.getCount());
+        addBedrooms(row.getBedrooms(), row.getCount());
+        if (rental)
+            rentCounts[row.getBucket()] += row.getCount();
+        else
+            priceCounts[row.getBucket()] += row.getCount();
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public void addType(PropertyType value, long count) {
+        if (value != null && count > 0)
+            type.merge(value, count, Long::sum);
+    }
+
+    public void addCity(String value, long count) {
+        if (value != null && count > 0)
+            city.merge(value, count, Long::sum);
+    }
+
+    public void addBedrooms(int value, long count) {
+        if (count > 0)
+            bedrooms.merge(value, count, Long::sum);
+    }
+
+    public void addPrice(int amount, long count) {
+        priceCounts[priceBuckets.indexOf(amount)] += count;
+    }
+
+    public void addMonthlyRent(int amount, long count) {
+        rentCounts[rentBuckets.indexOf(amount)] += count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<PropertyType, Long> getType() {
+        return type;
+    }
+
+    public Map<String, Long> getCity() {
+        return city;
+    }
+
+    public Map<Integer, Long> getBedrooms() {
+        return bedrooms;
+    }
+
+    public Map<String, Long> getPrice() {
+        return buckets(priceBuckets, priceCounts);
+    }
+
+    public Map<String, Long> getMonthlyRent() {
+        return buckets(rentBuckets, rentCounts);
+    }
+
+    private static Map<String, Long> buckets(FacetBuckets buckets, long[] counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++)
+            result.put(buckets.label(i), counts[i]);
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Property.PropertyType;
+
+public class FacetRow {
+
+    private final PropertyType type;
+    private final String city;
+    private final int bedrooms;
+    private final int bucket;
+    private final long count;
+
+    public FacetRow(PropertyType type, String city, Integer bedrooms, Integer bucket, Long count) {
+        this.type = type;
+        this.city = city;
+        this.bedrooms = bedrooms;
+        this.bucket = bucket;
+        this.count = count;
+    }
+
+    public PropertyType getType() {
+        return type;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public int getBedrooms() {
+        return bedrooms;
+    }
+
+    public int getBucket() {
+        return bucket;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
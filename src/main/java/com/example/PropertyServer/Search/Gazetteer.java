@@ -0,0 +1,73 @@
+package com.example.PropertyServer.Search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Component
+public class Gazetteer {
+
+    @Autowired
+    ResourceLoader resourceLoader;
+
+    @Value("${search.gazetteer.location:}")
+    String location;
+
+    private String[] postcodes = new String[0];
+    private float[] latitudes = new float[0];
+    private float[] longitudes = new float[0];
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (location == null || location.isBlank())
+            return;
+        Map<String, float[]> entries = new TreeMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(location).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                if (columns.length < 3)
+                    continue;
+                try {
+                    entries.put(PostcodeTrie.normalise(columns[0]), new float[]{
+                            Float.parseFloat(columns[1].trim()), Float.parseFloat(columns[2].trim())});
+                } catch (NumberFormatException ex) {
+                    // header or malformed row
+                }
+            }
+        }
+        postcodes = entries.keySet().toArray(new String[0]);
+        latitudes = new float[postcodes.length];
+        longitudes = new float[postcodes.length];
+        int i = 0;
+        for (float[] coordinates : entries.values()) {
+            latitudes[i] = coordinates[0];
+            longitudes[i++] = coordinates[1];
+        }
+    }
+
+    public Optional<Coordinates> locate(String postcode) {
+        if (postcode == null)
+            return Optional.empty();
+        int i = Arrays.binarySearch(postcodes, PostcodeTrie.normalise(postcode));
+        if (i < 0)
+            return Optional.empty();
+        return Optional.of(new Coordinates(latitudes[i], longitudes[i]));
+    }
+
+    public int size() {
+        return postcodes.length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.PropertyServer.Search;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+public class GeoGrid {
+
+    private static final double CELL_DEGREES = 0.05;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final Map<Long, BitSet> cells = new HashMap<>();
+
+    public void add(int id, double latitude, double longitude) {
+        cells.computeIfAbsent(cell(latitude, longitude), key -> new BitSet()).set(id);
+    }
+
+    public void remove(int id, double latitude, double longitude) {
+        long key = cell(latitude, longitude);
+        BitSet ids = cells.get(key);
+        if (ids == null)
+            return;
+        ids.clear(id);
+        if (ids.isEmpty())
+            cells.remove(key);
+    }
+
+    public BitSet candidates(double latitude, double longitude, double radiusKm) {
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double longitudeDelta = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        int minRow = row(latitude - latitudeDelta), maxRow = row(latitude + latitudeDelta);
+        int minColumn = column(longitude - longitudeDelta), maxColumn = column(longitude + longitudeDelta);
+        BitSet result = new BitSet();
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                BitSet ids = cells.get(key(row, column));
+                if (ids != null)
+                    result.or(ids);
+            }
+        }
+        return result;
+    }
+
+    private static long cell(double latitude, double longitude) {
+        return key(row(latitude), column(longitude));
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    private static int column(double longitude) {
+        return (int) Math.floor(longitude / CELL_DEGREES);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
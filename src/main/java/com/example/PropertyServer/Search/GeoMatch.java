@@ -0,0 +1,20 @@
+package com.example.PropertyServer.Search;
+
+public class GeoMatch {
+
+    private final int id;
+    private final double distanceKm;
+
+    public GeoMatch(int id, double distanceKm) {
+        this.id = id;
+        this.distanceKm = distanceKm;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.PropertyServer.Search;
+
+public class PostcodeCount {
+
+    private final String postcode;
+    private final long count;
+
+    public PostcodeCount(String postcode, long count) {
+        this.postcode = postcode;
+        this.count = count;
+    }
+
+    public String getPostcode() {
+        return postcode;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
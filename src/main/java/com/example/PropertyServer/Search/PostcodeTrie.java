@@ -0,0 +1,183 @@
+package com.example.PropertyServer.Search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+public class PostcodeTrie {
+
+    private static final Pattern UNSPACED_POSTCODE = Pattern.compile("^[A-Z]{1,2}\\d[A-Z\\d]?\\d[A-Z]{2}$");
+    private static final int INWARD_CODE_LENGTH = 3;
+
+    private final Node root = new Node("");
+
+    public static String normalise(String postcode) {
+        String compact = postcode.toUpperCase().replaceAll("\\s", "");
+        if (!UNSPACED_POSTCODE.matcher(compact).matches())
+            return postcode.trim().toUpperCase().replaceAll("\\s+", " ");
+        int split = compact.length() - INWARD_CODE_LENGTH;
+        return compact.substring(0, split) + " " + compact.substring(split);
+    }
+
+    public void add(String postcode, int id) {
+        String key = normalise(postcode);
+        if (contains(key, id))
+            return;
+        Node node = root;
+        int position = 0;
+        while (true) {
+            node.count++;
+            if (position == key.length()) {
+                node.ids.set(id);
+                return;
+            }
+            Node child = node.children.get(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                child.count = 1;
+                child.ids.set(id);
+                node.children.put(key.charAt(position), child);
+                return;
+            }
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                split.count = child.count;
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(key.charAt(position), split);
+                child = split;
+            }
+            position += common;
+            node = child;
+        }
+    }
+
+    public void remove(String postcode, int id) {
+        String key = normalise(postcode);
+        if (contains(key, id))
+            remove(root, key, 0, id);
+    }
+
+    public BitSet find(String prefix) {
+        BitSet result = new BitSet();
+        Match match = match(normalise(prefix));
+        if (match != null)
+            collect(match.node, result);
+        return result;
+    }
+
+    public List<PostcodeCount> list(String prefix, String after, int limit) {
+        List<PostcodeCount> result = new ArrayList<>();
+        Match match = match(normalise(prefix));
+        if (match != null)
+            list(match.node, match.path, after, limit, result);
+        return result;
+    }
+
+    private boolean contains(String key, int id) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            node = node.children.get(key.charAt(position));
+            if (node == null || !key.startsWith(node.label, position))
+                return false;
+            position += node.label.length();
+        }
+        return node.ids.get(id);
+    }
+
+    private boolean remove(Node node, String key, int position, int id) {
+        node.count--;
+        if (position == key.length()) {
+            node.ids.clear(id);
+        } else {
+            Node child = node.children.get(key.charAt(position));
+            if (remove(child, key, position + child.label.length(), id))
+                node.children.remove(key.charAt(position));
+            else if (child.ids.isEmpty() && child.children.size() == 1)
+                merge(child);
+        }
+        return node != root && node.count == 0;
+    }
+
+    private static void merge(Node node) {
+        Node only = node.children.values().iterator().next();
+        node.label = node.label + only.label;
+        node.ids = only.ids;
+        node.children = only.children;
+    }
+
+    private Match match(String prefix) {
+        Node node = root;
+        String path = "";
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(position));
+            if (child == null)
+                return null;
+            String remaining = prefix.substring(position);
+            if (!remaining.startsWith(child.label) && !child.label.startsWith(remaining))
+                return null;
+            path += child.label;
+            position += child.label.length();
+            node = child;
+        }
+        return new Match(node, path);
+    }
+
+    private static void collect(Node node, BitSet result) {
+        result.or(node.ids);
+        for (Node child : node.children.values())
+            collect(child, result);
+    }
+
+    private static boolean list(Node node, String path, String after, int limit, List<PostcodeCount> result) {
+        if (after != null && !after.startsWith(path) && path.compareTo(after) < 0)
+            return true;
+        if (!node.ids.isEmpty() && (after == null || path.compareTo(after) > 0)) {
+            if (result.size() == limit)
+                return false;
+            result.add(new PostcodeCount(path, node.ids.cardinality()));
+        }
+        for (Node child : node.children.values()) {
+            if (!list(child, path + child.label, after, limit, result))
+                return false;
+        }
+        return true;
+    }
+
+    private static int commonPrefixLength(String label, String key, int position) {
+        int length = 0;
+        while (length < label.length() && position + length < key.length()
+                && label.charAt(length) == key.charAt(position + length))
+            length++;
+        return length;
+    }
+
+    private static class Node {
+
+        private String label;
+        private int count;
+        private BitSet ids = new BitSet();
+        private Map<Character, Node> children = new TreeMap<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static class Match {
+
+        private final Node node;
+        private final String path;
+
+        Match(Node node, String path) {
+            this.node = node;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+
+public enum ProjectionField {
+
+    ID("id", null, "id"),
+    TYPE("type", null, "type"),
+    BEDROOMS("bedrooms", null, "bedrooms"),
+    NUMBER("number", null, "location", "number"),
+    STREET("street", null, "location", "street"),
+    CITY("city", null, "location", "city"),
+    COUNTY("county", null, "location", "county"),
+    POSTCODE("postcode", null, "location", "postCode"),
+    LATITUDE("latitude", null, "latitude"),
+    LONGITUDE("longitude", null, "longitude"),
+    MONTHLY_RENT("monthlyRent", RentalProperty.class, "monthlyRent"),
+    PRICE("price", SaleProperty.class, "price"),
+    IMAGES("images", null);
+
+    private final String name;
+    private final Class<? extends Property> subtype;
+    private final String[] path;
+
+    ProjectionField(String name, Class<? extends Property> subtype, String... path) {
+        this.name = name;
+        this.subtype = subtype;
+        this.path = path;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isColumn() {
+        return path.length > 0;
+    }
+
+    public boolean isSubtypeField() {
+        return subtype != null;
+    }
+
+    public boolean isAvailableOn(Class<? extends Property> type) {
+        return subtype == null || subtype.isAssignableFrom(type);
+    }
+
+    public void checkApplicable(Class<? extends Property> type) {
+        if (subtype != null && !type.isAssignableFrom(subtype))
+            throw new InvalidSearchParameterException("Field \"" + name + "\" is not available here.");
+    }
+
+    public Path<?> path(Root<? extends Property> root) {
+        Path<?> result = root;
+        for (String attribute : path)
+            result = result.get(attribute);
+        return result;
+    }
+
+    public static ProjectionField of(String name) {
+        return Arrays.stream(values())
+                .filter(field -> field.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new InvalidSearchParameterException("Field \"" + name + "\" not supported."));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.PropertyType;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+
+import java.util.Map;
+
+public class PropertyMatcher {
+
+    private static final Map<String, Class<? extends Property>> FIELDS = Map.of(
+            "city", Property.class,
+            "postcode", Property.class,
+            "type", Property.class,
+            "min", Property.class,
+            "max", Property.class,
+            "minMonthlyRent", RentalProperty.class,
+            "maxMonthlyRent", RentalProperty.class,
+            "minPrice", SaleProperty.class,
+            "maxPrice", SaleProperty.class);
+
+    public static void validate(Class<? extends Property> type, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            Class<? extends Property> fieldType = FIELDS.get(filter.getKey());
+            if (fieldType == null || !(type.isAssignableFrom(fieldType) || fieldType.isAssignableFrom(type)))
+                throw new InvalidSearchParameterException("Filter on \"" + filter.getKey() + "\" field not supported");
+            try {
+                switch (filter.getKey()) {
+                    case "city":
+                    case "postcode":
+                        break;
+                    case "type":
+                        PropertyType.valueOf(filter.getValue());
+                        break;
+                    default:
+                        Integer.parseInt(filter.getValue());
+                }
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidSearchParameterException("\"" + filter.getValue() + "\" is not a valid value for "
+                        + filter.getKey() + ".");
+            }
+        }
+    }
+
+    public static boolean matches(Class<? extends Property> type, Property property, Map<String, String> filters) {
+        if (!type.isInstance(property) || !inScope(property, filters))
+            return false;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if (!matches(property, filter.getKey(), filter.getValue()))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean inScope(Property property, Map<String, String> filters) {
+        boolean rentalFields = false;
+        boolean saleFields = false;
+        for (String field : filters.keySet()) {
+            rentalFields |= FIELDS.get(field) == RentalProperty.class;
+            saleFields |= FIELDS.get(field) == SaleProperty.class;
+        }
+        if (rentalFields == saleFields)
+            return true;
+        return rentalFields ? property instanceof RentalProperty : property instanceof SaleProperty;
+    }
+
+    private static boolean matches(Property property, String field, String value) {
+        switch (field) {
+            case "city":
+                return value.equals(property.getLocation().getCity());
+            case "postcode":
+                return PostcodeTrie.normalise(property.getLocation().getPostCode())
+                        .startsWith(PostcodeTrie.normalise(value));
+            case "type":
+                return property.getType().name().equals(value);
+            case "min":
+                return property.getBedrooms() >= Integer.parseInt(value);
+            case "max":
+                return property.getBedrooms() <= Integer.parseInt(value);
+            case "minMonthlyRent":
+                return !(property instanceof RentalProperty)
+                        || ((RentalProperty) property).getMonthlyRent() >= Integer.parseInt(value);
+            case "maxMonthlyRent":
+                return !(property instanceof RentalProperty)
+                        || ((RentalProperty) property).getMonthlyRent() <= Integer.parseInt(value);
+            case "minPrice":
+                return !(property instanceof SaleProperty)
+                        || ((SaleProperty) property).getPrice() >= Integer.parseInt(value);
+            case "maxPrice":
+                return !(property instanceof SaleProperty)
+                        || ((SaleProperty) property).getPrice() <= Integer.parseInt(value);
+            default:
+                throw new IllegalArgumentException("Filter on \"" + field + "\" field not supported");
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.PropertyType;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class PropertySearchIndex {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    @Autowired
+    PropertyBaseRepository<Property> propertyBaseRepository;
+
+    @Value("${search.index.enabled:false}")
+    boolean enabled;
+
+    private volatile boolean ready;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, IndexedProperty> properties = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final BitSet rentals = new BitSet();
+    private final BitSet sales = new BitSet();
+    private final Map<String, BitSet> byCity = new HashMap<>();
+    private final Map<PropertyType, BitSet> byType = new EnumMap<>(PropertyType.class);
+    private PostcodeTrie byPostcode = new PostcodeTrie();
+    private GeoGrid byLocation = new GeoGrid();
+    private TextIndex byText = new TextIndex();
+    private final NavigableMap<Integer, BitSet> byBedrooms = new TreeMap<>();
+    private final NavigableMap<Integer, BitSet> byPrice = new TreeMap<>();
+    private final NavigableMap<Integer, BitSet> byMonthlyRent = new TreeMap<>();
+
+    public boolean isEnabled() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled)
+            return;
+        lock.writeLock().lock();
+        try {
+            clear();
+            Pageable pageable = PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"));
+            Page<Property> page;
+            do {
+                page = propertyBaseRepository.findAll(pageable);
+                page.forEach(this::add);
+                pageable = page.nextPageable();
+            } while (page.hasNext());
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Property property) {
+        if (!enabled || property.getId() == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            IndexedProperty previous = properties.get(property.getId());
+            if (previous != null)
+                remove(previous);
+            add(property);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public BitSet search(Class<? extends Property> type, Map<String, String> filters) {
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) kind(type, filters.keySet()).clone();
+            for (Map.Entry<String, String> filter : filters.entrySet())
+                result.and(match(type, filter.getKey(), filter.getValue()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void facets(Map<String, String> filters, FacetCounts counts) {
+        lock.readLock().lock();
+        try {
+            if (filters.isEmpty()) {
+                counts.setTotal(all.cardinality());
+                byType.forEach((value, ids) -> counts.addType(value, ids.cardinality()));
+                byCity.forEach((value, ids) -> counts.addCity(value, ids.cardinality()));
+                byBedrooms.forEach((value, ids) -> counts.addBedrooms(value, ids.cardinality()));
+                byPrice.forEach((value, ids) -> counts.addPrice(value, ids.cardinality()));
+                byMonthlyRent.forEach((value, ids) -> counts.addMonthlyRent(value, ids.cardinality()));
+                return;
+            }
+            BitSet matches = search(Property.class, filters);
+            counts.setTotal(matches.cardinality());
+            for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+                IndexedProperty indexed = properties.get(id);
+                counts.addType(indexed.type, 1);
+                counts.addCity(indexed.city, 1);
+                counts.addBedrooms(indexed.bedrooms, 1);
+                if (indexed.rental)
+                    counts.addMonthlyRent(indexed.amount, 1);
+                else
+                    counts.addPrice(indexed.amount, 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PostcodeCount> postcodes(String prefix, String after, int limit) {
+        lock.readLock().lock();
+        try {
+            return byPostcode.list(prefix, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<GeoMatch> near(Class<? extends Property> type, Map<String, String> filters,
+            Coordinates origin, double radiusKm) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = byLocation.candidates(origin.getLatitude(), origin.getLongitude(), radiusKm);
+            candidates.and(search(type, filters));
+            List<GeoMatch> matches = new ArrayList<>();
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                IndexedProperty indexed = properties.get(id);
+                double distance = origin.distanceKm(indexed.latitude, indexed.longitude);
+                if (distance <= radiusKm)
+                    matches.add(new GeoMatch(id, distance));
+            }
+            matches.sort(Comparator.comparingDouble(GeoMatch::getDistanceKm).thenComparingInt(GeoMatch::getId));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<TextMatch> text(Class<? extends Property> type, Map<String, String> filters, String query) {
+        return text(type, filters, query, 0);
+    }
+
+    /**
+     * Ranks matches with the term statistics of the given generation while they are still kept, so that paging through
+     * a result with the generation of its first page neither repeats nor skips rows as other properties are indexed.
+     */
+    public List<TextMatch> text(Class<? extends Property> type, Map<String, String> filters, String query,
+            long generation) {
+        lock.readLock().lock();
+        try {
+            BitSet allowed = search(type, filters);
+            TextIndex.Statistics statistics = byText.statistics(generation);
+            List<TextMatch> matches = new ArrayList<>();
+            byText.search(query, statistics).forEach((id, score) -> {
+                if (allowed.get(id))
+                    matches.add(new TextMatch(id, score, statistics.getGeneration()));
+            });
+            matches.sort(Comparator.comparingDouble(TextMatch::getScore).reversed().thenComparingInt(TextMatch::getId));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet kind(Class<? extends Property> type, Set<String> fields) {
+        if (type == RentalProperty.class)
+            return rentals;
+        if (type == SaleProperty.class)
+            return sales;
+        boolean rentalFields = fields.contains("minMonthlyRent") || fields.contains("maxMonthlyRent");
+        boolean saleFields = fields.contains("minPrice") || fields.contains("maxPrice");
+        if (rentalFields != saleFields)
+            return rentalFields ? rentals : sales;
+        return all;
+    }
+
+    private BitSet match(Class<? extends Property> type, String field, String value) {
+        switch (field) {
+            case "city":
+                return byCity.getOrDefault(value, new BitSet());
+            case "postcode":
+                return byPostcode.find(value);
+            case "type":
+                return byType.getOrDefault(PropertyType.valueOf(value), new BitSet());
+            case "min":
+                return union(byBedrooms.tailMap(Integer.parseInt(value), true));
+            case "max":
+                return union(byBedrooms.headMap(Integer.parseInt(value), true));
+        }
+        if (type != SaleProperty.class) {
+            switch (field) {
+                case "minMonthlyRent":
+                    return orOther(union(byMonthlyRent.tailMap(Integer.parseInt(value), true)), sales, type);
+                case "maxMonthlyRent":
+                    return orOther(union(byMonthlyRent.headMap(Integer.parseInt(value), true)), sales, type);
+            }
+        }
+        if (type != RentalProperty.class) {
+            switch (field) {
+                case "minPrice":
+                    return orOther(union(byPrice.tailMap(Integer.parseInt(value), true)), rentals, type);
+                case "maxPrice":
+                    return orOther(union(byPrice.headMap(Integer.parseInt(value), true)), rentals, type);
+            }
+        }
+        throw new IllegalArgumentException("Filter on \"" + field + "\" field not supported");
+    }
+
+    private static BitSet orOther(BitSet matches, BitSet other, Class<? extends Property> type) {
+        if (type == Property.class)
+            matches.or(other);
+        return matches;
+    }
+
+    private static BitSet union(Map<?, BitSet> bitSets) {
+        BitSet result = new BitSet();
+        bitSets.values().forEach(result::or);
+        return result;
+    }
+
+    private void add(Property property) {
+        IndexedProperty indexed = new IndexedProperty(property);
+        int id = indexed.id;
+        properties.put(id, indexed);
+        all.set(id);
+        (indexed.rental ? rentals : sales).set(id);
+        if (indexed.city != null)
+            byCity.computeIfAbsent(indexed.city, key -> new BitSet()).set(id);
+        if (indexed.postcode != null)
+            byPostcode.add(indexed.postcode, id);
+        if (indexed.type != null)
+            byType.computeIfAbsent(indexed.type, key -> new BitSet()).set(id);
+        if (indexed.hasCoordinates())
+            byLocation.add(id, indexed.latitude, indexed.longitude);
+        byText.add(id, indexed.street, indexed.city, indexed.county);
+        byBedrooms.computeIfAbsent(indexed.bedrooms, key -> new BitSet()).set(id);
+        (indexed.rental ? byMonthlyRent : byPrice).computeIfAbsent(indexed.amount, key -> new BitSet()).set(id);
+    }
+
+    private void remove(IndexedProperty indexed) {
+        int id = indexed.id;
+        properties.remove(id);
+        all.clear(id);
+        rentals.clear(id);
+        sales.clear(id);
+        clearBit(byCity, indexed.city, id);
+        if (indexed.postcode != null)
+            byPostcode.remove(indexed.postcode, id);
+        clearBit(byType, indexed.type, id);
+        if (indexed.hasCoordinates())
+            byLocation.remove(id, indexed.latitude, indexed.longitude);
+        byText.remove(id, indexed.street, indexed.city, indexed.county);
+        clearBit(byBedrooms, indexed.bedrooms, id);
+        clearBit(indexed.rental ? byMonthlyRent : byPrice, indexed.amount, id);
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> index, K key, int id) {
+        if (key == null)
+            return;
+        BitSet bitSet = index.get(key);
+        if (bitSet == null)
+            return;
+        bitSet.clear(id);
+        if (bitSet.isEmpty())
+            index.remove(key);
+    }
+
+    private void clear() {
+        properties.clear();
+        all.clear();
+        rentals.clear();
+        sales.clear();
+        byCity.clear();
+        byType.clear();
+        byPostcode = new PostcodeTrie();
+        byLocation = new GeoGrid();
+        byText = new TextIndex();
+        byBedrooms.clear();
+        byPrice.clear();
+        byMonthlyRent.clear();
+    }
+
+    private static class IndexedProperty {
+
+        private final int id;
+        private final boolean rental;
+        private final PropertyType type;
+        private final String street;
+        private final String city;
+        private final String county;
+        private final String postcode;
+        private final int bedrooms;
+        private final int amount;
+        private final double latitude;
+        private final double longitude;
+
+        IndexedProperty(Property property) {
+            this.id = property.getId();
+            this.rental = property instanceof RentalProperty;
+            this.type = property.getType();
+            this.street = property.getLocation() == null ? null : property.getLocation().getStreet();
+            this.city = property.getLocation() == null ? null : property.getLocation().getCity();
+            this.county = property.getLocation() == null ? null : property.getLocation().getCounty();
+            this.postcode = property.getLocation() == null ? null : property.getLocation().getPostCode();
+            this.bedrooms = property.getBedrooms();
+            this.amount = rental ? ((RentalProperty) property).getMonthlyRent() : ((SaleProperty) property).getPrice();
+            this.latitude = property.getLatitude() == null ? Double.NaN : property.getLatitude();
+            this.longitude = property.getLongitude() == null ? Double.NaN : property.getLongitude();
+        }
+
+        boolean hasCoordinates() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+    }
+}
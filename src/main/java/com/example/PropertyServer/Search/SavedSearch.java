@@ -0,0 +1,109 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Repositories.SearchFiltersConverter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import java.util.HashMap;
+import java.util.Map;
+
+@Entity
+public class SavedSearch {
+
+    public static final String PROPERTIES = "properties";
+    public static final String RENTAL_PROPERTIES = "rentalProperties";
+    public static final String SALE_PROPERTIES = "saleProperties";
+
+    @Id
+    @GeneratedValue
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer id;
+
+    private String type = PROPERTIES;
+
+    @Convert(converter = SearchFiltersConverter.class)
+    @Column(length = 2048)
+    private Map<String, String> filters = new HashMap<>();
+
+    /**
+     * A random secret handed to the client that registered the search and required to delete it; ids are sequential,
+     * so they cannot stand in for ownership.
+     */
+    @JsonIgnore
+    private String ownerToken;
+
+    @JsonIgnore
+    private String client;
+
+    public SavedSearch() {
+    }
+
+    public SavedSearch(String type, Map<String, String> filters) {
+        this.type = type;
+        this.filters = filters;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    public void setFilters(Map<String, String> filters) {
+        this.filters = filters;
+    }
+
+    public String getOwnerToken() {
+        return ownerToken;
+    }
+
+    public void setOwnerToken(String ownerToken) {
+        this.ownerToken = ownerToken;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public void setClient(String client) {
+        this.client = client;
+    }
+
+    @JsonIgnore
+    public Class<? extends Property> getPropertyClass() {
+        if (type == null)
+            return null;
+        switch (type) {
+            case PROPERTIES:
+                return Property.class;
+            case RENTAL_PROPERTIES:
+                return RentalProperty.class;
+            case SALE_PROPERTIES:
+                return SaleProperty.class;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Property.Property;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SavedSearchIndex {
+
+    private final Map<String, Map<Integer, SavedSearch>> byCity = new HashMap<>();
+    private final Map<Integer, SavedSearch> anyCity = new HashMap<>();
+
+    public void add(SavedSearch search) {
+        bucket(search, true).put(search.getId(), search);
+    }
+
+    public void remove(SavedSearch search) {
+        Map<Integer, SavedSearch> bucket = bucket(search, false);
+        if (bucket == null)
+            return;
+        bucket.remove(search.getId());
+        if (bucket.isEmpty() && bucket != anyCity)
+            byCity.remove(search.getFilters().get("city"));
+    }
+
+    public List<SavedSearch> match(Property property) {
+        List<SavedSearch> matches = new ArrayList<>();
+        String city = property.getLocation() == null ? null : property.getLocation().getCity();
+        if (city != null)
+            collect(byCity.get(city), property, matches);
+        collect(anyCity, property, matches);
+        return matches;
+    }
+
+    public int size() {
+        return anyCity.size() + byCity.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Map<Integer, SavedSearch> bucket(SavedSearch search, boolean create) {
+        String city = search.getFilters().get("city");
+        if (city == null)
+            return anyCity;
+        return create ? byCity.computeIfAbsent(city, key -> new HashMap<>()) : byCity.get(city);
+    }
+
+    private static void collect(Map<Integer, SavedSearch> candidates, Property property, List<SavedSearch> matches) {
+        if (candidates == null)
+            return;
+        for (SavedSearch search : candidates.values()) {
+            if (PropertyMatcher.matches(search.getPropertyClass(), property, search.getFilters()))
+                matches.add(search);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Exceptions.SearchRejectedException;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class SearchAdmission {
+
+    @Autowired
+    PropertyBaseRepository<Property> propertyBaseRepository;
+
+    private final long expensiveRows;
+    private final long rowEstimateRefreshMs;
+    private final int expensiveMaxLimit;
+    private final int expensiveConcurrency;
+    private final long queueTimeoutMs;
+    private final long retryAfterSeconds;
+    private final Semaphore expensiveLane;
+    private final AtomicLong rowsEstimatedAt = new AtomicLong();
+    private volatile long tableRows;
+
+    private final LongAdder cheap = new LongAdder();
+    private final LongAdder expensive = new LongAdder();
+    private final LongAdder forcedPagination = new LongAdder();
+    private final LongAdder capped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public SearchAdmission(@Value("${search.admission.expensive-rows:5000}") long expensiveRows,
+            @Value("${search.admission.row-estimate-refresh-ms:60000}") long rowEstimateRefreshMs,
+            @Value("${search.admission.expensive-max-limit:100}") int expensiveMaxLimit,
+            @Value("${search.admission.expensive-concurrency:2}") int expensiveConcurrency,
+            @Value("${search.admission.queue-timeout-ms:100}") long queueTimeoutMs,
+            @Value("${search.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.expensiveRows = expensiveRows;
+        this.rowEstimateRefreshMs = rowEstimateRefreshMs;
+        this.expensiveMaxLimit = expensiveMaxLimit;
+        this.expensiveConcurrency = expensiveConcurrency;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.expensiveLane = new Semaphore(expensiveConcurrency, true);
+    }
+
+    public Ticket admit(Map<String, String> filters) {
+        if (estimateRows(filters) <= expensiveRows) {
+            cheap.increment();
+            return new Ticket(false);
+        }
+        boolean acquired;
+        try {
+            acquired = expensiveLane.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new SearchRejectedException(retryAfterSeconds);
+        }
+        expensive.increment();
+        return new Ticket(true);
+    }
+
+    public long estimateRows(Map<String, String> filters) {
+        return Math.round(tableRows() * estimateSelectivity(filters));
+    }
+
+    public static double estimateSelectivity(Map<String, String> filters) {
+        double selectivity = 1;
+        for (Map.Entry<String, String> filter : filters.entrySet())
+            selectivity *= selectivity(filter.getKey(), filter.getValue());
+        return selectivity;
+    }
+
+    private static double selectivity(String field, String value) {
+        switch (field) {
+            case "city":
+                return 0.05;
+            case "postcode":
+                int length = value.replace(" ", "").length();
+                return length >= 5 ? 0.001 : length >= 3 ? 0.01 : 0.1;
+            case "type":
+                return 0.25;
+            default:
+                return 0.5;
+        }
+    }
+
+    public AdmissionStats getStats() {
+        return new AdmissionStats(tableRows, cheap.sum(), expensive.sum(), forcedPagination.sum(), capped.sum(),
+                rejected.sum(), expensiveConcurrency - expensiveLane.availablePermits());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshRowEstimate() {
+        rowsEstimatedAt.set(System.currentTimeMillis());
+        tableRows = propertyBaseRepository.count();
+    }
+
+    private long tableRows() {
+        long estimatedAt = rowsEstimatedAt.get();
+        long now = System.currentTimeMillis();
+        if (now - estimatedAt > rowEstimateRefreshMs && rowsEstimatedAt.compareAndSet(estimatedAt, now))
+            tableRows = propertyBaseRepository.count();
+        return tableRows;
+    }
+
+    public class Ticket implements AutoCloseable {
+
+        private final boolean expensive;
+        private boolean released;
+
+        private Ticket(boolean expensive) {
+            this.expensive = expensive;
+        }
+
+        public boolean isExpensive() {
+            return expensive;
+        }
+
+        public int limit(int requested) {
+            if (!expensive || requested <= expensiveMaxLimit)
+                return requested;
+            capped.increment();
+            return expensiveMaxLimit;
+        }
+
+        public boolean forcePagination(boolean unpaged) {
+            if (!expensive || !unpaged)
+                return false;
+            forcedPagination.increment();
+            return true;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (expensive && !released) {
+                released = true;
+                expensiveLane.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.PropertyServer.Search;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class SearchParameters {
+
+    public static final String LIMIT = "limit";
+    public static final String AFTER = "after";
+    public static final String UNPAGED = "unpaged";
+    public static final String NEAR = "near";
+    public static final String RADIUS = "radius";
+    public static final String COUNT = "count";
+    public static final String EXISTS = "exists";
+    public static final String FIELDS = "fields";
+    public static final String SORT = "sort";
+    public static final String QUERY = "q";
+    public static final String IDS = "ids";
+
+    private static final Set<String> RESERVED = Set.of(LIMIT, AFTER, UNPAGED, NEAR, RADIUS, COUNT, EXISTS, FIELDS,
+            SORT, QUERY, IDS);
+
+    public static Map<String, String> filters(Map<String, String> params) {
+        Map<String, String> filters = new HashMap<>(params);
+        filters.keySet().removeAll(RESERVED);
+        return filters;
+    }
+}
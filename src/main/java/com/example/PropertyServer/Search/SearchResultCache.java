@@ -0,0 +1,173 @@
+package com.example.PropertyServer.Search;
+
+import com.example.PropertyServer.Pagination.SortOrder;
+import com.example.PropertyServer.Property.Property;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class SearchResultCache {
+
+    @Value("${search.result-cache.max-weight:10000}")
+    long maxWeight;
+
+    /**
+     * Eviction only sees writes made through this instance, so an entry is also dropped once it is this old to bound
+     * how long a change made by another instance or directly in the database can go unseen. Zero keeps entries until
+     * they are evicted.
+     */
+    @Value("${search.result-cache.ttl-ms:30000}")
+    long ttlMillis;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong version = new AtomicLong();
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <R> R get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(ttlMillis)) {
+            entries.remove(key);
+            weight -= entry.weight;
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (R) entry.value;
+    }
+
+    public synchronized void put(Key key, Object value, List<? extends Property> rows, long expectedVersion) {
+        long entryWeight = rows.size() + 1;
+        if (expectedVersion != version.get() || entryWeight > maxWeight)
+            return;
+        BitSet ids = new BitSet();
+        for (Property row : rows)
+            ids.set(row.getId());
+        Entry previous = entries.put(key, new Entry(value, ids, entryWeight));
+        if (previous != null)
+            weight -= previous.weight;
+        weight += entryWeight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void evict(Property property) {
+        version.incrementAndGet();
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            Key key = entry.getKey();
+            if (!key.type.isInstance(property))
+                continue;
+            if (entry.getValue().ids.get(property.getId()) || matches(property, key)) {
+                weight -= entry.getValue().weight;
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        version.incrementAndGet();
+        invalidations += entries.size();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized ResultCacheStats getStats() {
+        return new ResultCacheStats(hits, misses, evictions, expirations, invalidations, entries.size(), weight);
+    }
+
+    private static boolean matches(Property property, Key key) {
+        try {
+            return PropertyMatcher.matches(key.type, property, key.filters);
+        } catch (RuntimeException ex) {
+            // anything we cannot evaluate here is treated as a match so the entry is dropped
+            return true;
+        }
+    }
+
+    public static class Key {
+
+        private final Class<? extends Property> type;
+        private final Map<String, String> filters;
+        private final Integer limit;
+        private final String after;
+        private final String sort;
+
+        public Key(Class<? extends Property> type, Map<String, String> filters) {
+            this(type, filters, null, null, null);
+        }
+
+        public Key(Class<? extends Property> type, Map<String, String> filters, Integer limit, String after,
+                SortOrder sort) {
+            this.type = type;
+            this.filters = new TreeMap<>(filters);
+            this.limit = limit;
+            this.after = after;
+            this.sort = sort == null ? null : sort.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return type.equals(key.type) && filters.equals(key.filters) && Objects.equals(limit, key.limit)
+                    && Objects.equals(after, key.after) && Objects.equals(sort, key.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, filters, limit, after, sort);
+        }
+    }
+
+    private static class Entry {
+
+        private final Object value;
+        private final BitSet ids;
+        private final long weight;
+        private final long storedAt = System.currentTimeMillis();
+
+        private Entry(Object value, BitSet ids, long weight) {
+            this.value = value;
+            this.ids = ids;
+            this.weight = weight;
+        }
+
+        private boolean isExpired(long ttlMillis) {
+            return ttlMillis > 0 && System.currentTimeMillis() - storedAt >= ttlMillis;
+        }
+    }
+}
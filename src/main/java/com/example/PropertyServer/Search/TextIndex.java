@@ -0,0 +1,152 @@
+package com.example.PropertyServer.Search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TextIndex {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final float STREET_WEIGHT = 3;
+    private static final float CITY_WEIGHT = 2;
+    private static final float COUNTY_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final int KEPT_STATISTICS = 8;
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private int documents;
+
+    /**
+     * Scores are computed against a snapshot of the document frequencies rather than the live ones, so a result's
+     * score only moves when the result itself changes. The snapshot is replaced once a tenth of the index has changed
+     * since it was taken, and the last few are kept so a cursor can rank its later pages the way its first page was.
+     */
+    private final Map<Long, Statistics> statistics = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Statistics> eldest) {
+            return size() > KEPT_STATISTICS;
+        }
+    };
+    private Statistics current = new Statistics(GENERATIONS.incrementAndGet(), 0, Map.of());
+    private int changes;
+
+    public static List<String> tokenise(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find())
+            tokens.add(matcher.group());
+        return tokens;
+    }
+
+    public void add(int id, String street, String city, String county) {
+        add(id, street, STREET_WEIGHT);
+        add(id, city, CITY_WEIGHT);
+        add(id, county, COUNTY_WEIGHT);
+        documents++;
+        changed();
+    }
+
+    public void remove(int id, String street, String city, String county) {
+        for (String text : new String[]{street, city, county}) {
+            for (String token : tokenise(text)) {
+                Map<Integer, Float> ids = postings.get(token);
+                if (ids == null)
+                    continue;
+                ids.remove(id);
+                if (ids.isEmpty())
+                    postings.remove(token);
+            }
+        }
+        documents--;
+        changed();
+    }
+
+    /**
+     * Returns the snapshot with the given generation, or the current one when it is no longer kept.
+     */
+    public Statistics statistics(long generation) {
+        return statistics.getOrDefault(generation, current);
+    }
+
+    public Map<Integer, Double> search(String query) {
+        return search(query, current);
+    }
+
+    public Map<Integer, Double> search(String query, Statistics statistics) {
+        Map<Integer, Double> scores = new HashMap<>();
+        List<String> tokens = tokenise(query);
+        for (int i = 0; i < tokens.size(); i++) {
+            Map<Integer, Double> tokenScores = score(tokens.get(i), statistics);
+            if (i == 0) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty())
+                break;
+        }
+        return scores;
+    }
+
+    private Map<Integer, Double> score(String token, Statistics statistics) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Float>> term
+                : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            double idf = statistics.idf(term.getKey());
+            double factor = term.getKey().equals(token) ? 1 : PREFIX_FACTOR;
+            term.getValue().forEach((id, weight) -> scores.merge(id, weight * idf * factor, Math::max));
+        }
+        return scores;
+    }
+
+    private void add(int id, String text, float weight) {
+        for (String token : tokenise(text))
+            postings.computeIfAbsent(token, key -> new HashMap<>()).merge(id, weight, Float::sum);
+    }
+
+    private void changed() {
+        if (++changes <= current.documents / 10)
+            return;
+        Map<String, Integer> frequencies = new HashMap<>();
+        postings.forEach((term, ids) -> frequencies.put(term, ids.size()));
+        current = new Statistics(GENERATIONS.incrementAndGet(), documents, frequencies);
+        statistics.put(current.generation, current);
+        changes = 0;
+    }
+
+    public static class Statistics {
+
+        private final long generation;
+        private final int documents;
+        private final Map<String, Integer> frequencies;
+
+        private Statistics(long generation, int documents, Map<String, Integer> frequencies) {
+            this.generation = generation;
+            this.documents = documents;
+            this.frequencies = frequencies;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * A term added since the snapshot was taken is treated as appearing in a single document.
+         */
+        private double idf(String term) {
+            return Math.log(1 + (double) Math.max(documents, 1) / frequencies.getOrDefault(term, 1));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.PropertyServer.Search;
+
+public class TextMatch {
+
+    private final int id;
+    private final double score;
+    private final long generation;
+
+    public TextMatch(int id, double score, long generation) {
+        this.id = id;
+        this.score = score;
+        this.generation = generation;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * The generation of the term statistics the score was computed with.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.PropertyServer.Services;
 
 import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentPortfolios;
+import com.example.PropertyServer.Agent.AgentStats;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
+import com.example.PropertyServer.Pagination.MultiGetResult;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Repositories.AgentRepository;
+import com.example.PropertyServer.Repositories.IdReservations;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -23,10 +29,28 @@ public class AgentService {
     @Autowired
     S3Service s3Service;
 
+    @Autowired
+    AgentPortfolios agentPortfolios;
+
+    @Autowired
+    IdReservations idReservations;
+
+    @Autowired
+    ImageResizer imageResizer;
+
     public Agent createAgent(Agent agent, MultipartFile logo) throws IOException {
-        agentRepository.save(agent);
-        agent.setLogoImage(s3Service.save(logo, "agent_" + agent.getId() + "_logo"));
-        return agentRepository.save(agent);
+        agent.setId(idReservations.reserve(Agent.class));
+        String filename = "agent_" + agent.getId() + "_logo";
+        List<String> filenames = new ArrayList<>(List.of(filename));
+        filenames.addAll(imageResizer.variantFilenames(filename));
+        try {
+            agent.setLogoImage(s3Service.save(logo, filename));
+            agent.setLogoVariants(imageResizer.save(logo, filename));
+            return agentRepository.save(agent);
+        } catch (IOException | RuntimeException ex) {
+            s3Service.discard(filenames, ex);
+            throw ex;
+        }
     }
 
     public List<Agent> getAll() {
@@ -37,11 +61,22 @@ public class AgentService {
         return agentRepository.findById(id).orElseThrow(() -> new AgentNotFoundException(id));
     }
 
+    public MultiGetResult<Agent> getAgents(List<Integer> ids) {
+        List<Integer> distinct = MultiGetResult.distinct(ids);
+        return MultiGetResult.of(distinct, agentRepository.findAllById(distinct), Agent::getId);
+    }
+
     public List<Property> getAgentProperties(int id) { return agentRepository.findById(id)
             .orElseThrow(() -> new AgentNotFoundException(id)).getProperties();}
 
+    public AgentStats getAgentStats(int id) {
+        if (!agentRepository.existsById(id))
+            throw new AgentNotFoundException(id);
+        return agentPortfolios.stats(id);
+    }
+
     public Agent getAgentForProperty(int property_id) {
-        return propertyService.getProperty(property_id).getAgent();
+        return (Agent) Hibernate.unproxy(propertyService.getProperty(property_id).getAgent());
     }
 }
 
@@ -0,0 +1,184 @@
+package com.example.PropertyServer.Services;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class ChunkedUploader {
+
+    // S3 rejects any part but the last that is smaller than this.
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    @Autowired
+    AmazonS3 s3;
+
+    private final ExecutorService executor;
+    private final int partSize;
+    private final int parallelism;
+    private final int partAttempts;
+    private final long retryBackoffMs;
+
+    public ChunkedUploader(@Value("${s3.multipart.threads:16}") int threads,
+            @Value("${s3.multipart.part-size-bytes:8388608}") int partSize,
+            @Value("${s3.multipart.parallelism:4}") int parallelism,
+            @Value("${s3.multipart.part-attempts:3}") int partAttempts,
+            @Value("${s3.multipart.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("s3-part-"));
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.partAttempts = Math.max(1, partAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    /**
+     * Uploads the stream as an S3 multipart upload. Parts are read one at a time and sent with at most
+     * {@code s3.multipart.parallelism} in flight, so memory stays bounded by that many parts. A failed part is retried
+     * on its own; once a part runs out of attempts the whole upload is aborted.
+     */
+    public void upload(String bucket, String key, InputStream inputStream, ObjectMetadata metadata) throws IOException {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(metadata.getContentType());
+        String uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key, objectMetadata))
+                .getUploadId();
+        List<Part> parts = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (int partNumber = 1; !failed.get(); partNumber++) {
+                byte[] part = inputStream.readNBytes(partSize);
+                if (part.length == 0 && partNumber > 1)
+                    break;
+                inFlight.acquire();
+                int number = partNumber;
+                Part task = new Part();
+                parts.add(task);
+                task.future = executor.submit(() -> {
+                    if (!task.started.compareAndSet(false, true))
+                        throw new CancellationException();
+                    try {
+                        return uploadPart(bucket, key, uploadId, number, part);
+                    } catch (RuntimeException ex) {
+                        failed.set(true);
+                        throw ex;
+                    } finally {
+                        inFlight.release();
+                        task.finished.countDown();
+                    }
+                });
+                if (part.length < partSize)
+                    break;
+            }
+            List<PartETag> partETags = new ArrayList<>();
+            for (Part part : parts)
+                partETags.add(part.future.get());
+            s3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+        } catch (ExecutionException ex) {
+            abort(bucket, key, uploadId, parts, ex);
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            abort(bucket, key, uploadId, parts, ex);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while uploading " + key);
+        } catch (IOException | RuntimeException ex) {
+            abort(bucket, key, uploadId, parts, ex);
+            throw ex;
+        }
+    }
+
+    private PartETag uploadPart(String bucket, String key, String uploadId, int partNumber, byte[] part)
+            throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return s3.uploadPart(new UploadPartRequest()
+                        .withBucketName(bucket)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withInputStream(new ByteArrayInputStream(part))
+                        .withPartSize(part.length))
+                        .getPartETag();
+            } catch (SdkClientException ex) {
+                if (attempt >= partAttempts || !isRetryable(ex))
+                    throw ex;
+                Thread.sleep(retryBackoffMs * attempt);
+            }
+        }
+    }
+
+    private static boolean isRetryable(SdkClientException ex) {
+        if (!(ex instanceof AmazonServiceException))
+            return true;
+        int status = ((AmazonServiceException) ex).getStatusCode();
+        return status >= 500 || status == 408 || status == 429;
+    }
+
+    // A part still being sent when the upload is aborted could be stored after the abort and kept (and billed) by S3,
+    // so parts that have not started are stopped and the rest are waited for before aborting.
+    private void abort(String bucket, String key, String uploadId, List<Part> parts, Exception cause) {
+        for (Part part : parts) {
+            if (part.started.compareAndSet(false, true))
+                part.finished.countDown();
+            if (part.future != null)
+                part.future.cancel(true);
+        }
+        boolean interrupted = Thread.interrupted();
+        for (Part part : parts) {
+            while (true) {
+                try {
+                    part.finished.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch (RuntimeException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    private static class Part {
+
+        final AtomicBoolean started = new AtomicBoolean();
+        final CountDownLatch finished = new CountDownLatch(1);
+        Future<PartETag> future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
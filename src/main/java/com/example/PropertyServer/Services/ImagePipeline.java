@@ -0,0 +1,185 @@
+package com.example.PropertyServer.Services;
+
+import com.example.PropertyServer.Exceptions.ImageQueueFullException;
+import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
+import com.example.PropertyServer.Property.ImageUploadStatus;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Search.SearchResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.PathResource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ImagePipeline {
+
+    private static final int ATTACH_ATTEMPTS = 5;
+
+    @Autowired
+    S3Service s3Service;
+
+    @Autowired
+    PropertyBaseRepository<Property> propertyBaseRepository;
+
+    @Autowired
+    SearchResultCache searchResultCache;
+
+    @Autowired
+    ParallelUploader parallelUploader;
+
+    @Autowired
+    ImageResizer imageResizer;
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Map<Integer, ImageUploadStatus> statuses;
+
+    public ImagePipeline(@Value("${images.upload.workers:4}") int workers,
+            @Value("${images.upload.queue-capacity:100}") int queueCapacity,
+            @Value("${images.upload.max-tracked:10000}") int maxTracked,
+            @Value("${images.upload.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-upload-"));
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ImageUploadStatus> eldest) {
+                return size() > maxTracked;
+            }
+        });
+    }
+
+    /**
+     * Moves the request's images to local spool files, which outlive the request. A part the container already holds
+     * on disk is renamed rather than copied; a small in-memory part is written out once. Fails fast when the upload
+     * queue is already full, before anything has been written.
+     */
+    public Upload spool(MultipartFile[] images) throws IOException {
+        if (executor.getQueue().remainingCapacity() == 0)
+            throw new ImageQueueFullException(retryAfterSeconds);
+        Upload upload = new Upload();
+        try {
+            for (MultipartFile image : images) {
+                Path file = Files.createTempFile("property-image-", ".spool");
+                upload.files.add(file);
+                image.transferTo(file.toFile());
+            }
+        } catch (IOException | RuntimeException ex) {
+            upload.discard();
+            throw ex;
+        }
+        return upload;
+    }
+
+    public ImageUploadStatus submit(int propertyId, Upload upload) {
+        ImageUploadStatus status = new ImageUploadStatus(propertyId, upload.files.size());
+        statuses.put(propertyId, status);
+        if (status.isFinished())
+            return status;
+        try {
+            executor.execute(() -> process(propertyId, upload, status));
+        } catch (RejectedExecutionException ex) {
+            upload.discard();
+            status.failed("upload queue is full");
+            status.finished();
+        }
+        return status;
+    }
+
+    public Optional<ImageUploadStatus> getStatus(int propertyId) {
+        return Optional.ofNullable(statuses.get(propertyId));
+    }
+
+    private void process(int propertyId, Upload upload, ImageUploadStatus status) {
+        status.started();
+        List<String> filenames = new ArrayList<>();
+        try {
+            List<Callable<Map.Entry<URL, Map<Integer, URL>>>> uploads = new ArrayList<>();
+            for (Path file : upload.files) {
+                String filename = PropertyService.buildFilename(propertyId);
+                filenames.add(filename);
+                filenames.addAll(imageResizer.variantFilenames(filename));
+                uploads.add(() -> {
+                    URL url = s3Service.save(file, filename);
+                    Map<Integer, URL> variants = imageResizer.save(new PathResource(file), filename);
+                    status.uploaded();
+                    return Map.entry(url, variants);
+                });
+            }
+            attach(propertyId, parallelUploader.uploadAll(uploads));
+        } catch (IOException | RuntimeException ex) {
+            s3Service.discard(filenames, ex);
+            status.failed(ex.getMessage());
+        } finally {
+            upload.discard();
+        }
+        status.finished();
+    }
+
+    /**
+     * Appends uploaded images to the property. The row is re-read after the uploads and written under its version, so
+     * when another upload to the same property commits first the append is retried on the fresh row rather than
+     * overwriting it.
+     */
+    public Property attach(int propertyId, List<Map.Entry<URL, Map<Integer, URL>>> images) {
+        for (int attempt = 1; ; attempt++) {
+            Property property = findProperty(propertyId);
+            images.forEach(image -> property.addImage(image.getKey(), image.getValue()));
+            try {
+                Property saved = propertyBaseRepository.save(property);
+                searchResultCache.evict(saved);
+                return saved;
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= ATTACH_ATTEMPTS)
+                    throw ex;
+            }
+        }
+    }
+
+    private Property findProperty(int propertyId) {
+        return propertyBaseRepository.findWithImagesById(propertyId)
+                .orElseThrow(() -> new PropertyNotFoundException(propertyId));
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static class Upload {
+
+        private final List<Path> files = new ArrayList<>();
+
+        public void discard() {
+            files.forEach(ImagePipeline::delete);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.PropertyServer.Services;
+
+import com.example.PropertyServer.Exceptions.ImageTooLargeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class ImageResizer {
+
+    @Autowired
+    S3Service s3Service;
+
+    private final int[] widths;
+    private final long maxPixels;
+    private final ExecutorService executor;
+
+    public ImageResizer(@Value("${images.variants.widths:300,800}") int[] widths,
+            @Value("${images.variants.threads:0}") int threads,
+            @Value("${images.variants.max-pixels:50000000}") long maxPixels) {
+        this.widths = Arrays.stream(widths).filter(width -> width > 0).sorted().distinct().toArray();
+        this.maxPixels = maxPixels;
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("image-resize-"));
+    }
+
+    /**
+     * Stores a downscaled copy of the image next to the original for every configured width narrower than the
+     * original, and returns their URLs by width. Decoding and scaling run on a pool sized to the CPUs, which also
+     * bounds how many decoded images are held in memory at once. Anything ImageIO cannot decode, such as a PDF
+     * floorplan, gets no variants, and neither does an image whose header declares more than
+     * {@code images.variants.max-pixels} pixels: it is never decoded, since a small compressed file can expand into
+     * gigabytes of raster, but the original is still kept.
+     */
+    public Map<Integer, URL> save(InputStreamSource image, String filename) throws IOException {
+        Map<Integer, URL> variants = new TreeMap<>();
+        if (widths.length == 0)
+            return variants;
+        Map<Integer, byte[]> resized;
+        try {
+            resized = resize(image);
+        } catch (ImageTooLargeException ex) {
+            return variants;
+        }
+        for (Map.Entry<Integer, byte[]> variant : resized.entrySet()) {
+            String variantFilename = variantFilename(filename, variant.getKey());
+            variants.put(variant.getKey(), s3Service.save(variant.getValue(), "image/jpeg", variantFilename));
+        }
+        return variants;
+    }
+
+    public List<String> variantFilenames(String filename) {
+        List<String> filenames = new ArrayList<>();
+        for (int width : widths)
+            filenames.add(variantFilename(filename, width));
+        return filenames;
+    }
+
+    static String variantFilename(String filename, int width) {
+        return filename + "_w" + width;
+    }
+
+    private Map<Integer, byte[]> resize(InputStreamSource image) throws IOException {
+        try {
+            return executor.submit(() -> {
+                BufferedImage original;
+                try (InputStream inputStream = image.getInputStream()) {
+                    original = decode(inputStream);
+                }
+                Map<Integer, byte[]> variants = new TreeMap<>();
+                if (original == null)
+                    return variants;
+                for (int width : widths) {
+                    if (width >= original.getWidth())
+                        break;
+                    variants.put(width, encode(scale(original, width)));
+                }
+                return variants;
+            }).get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException)
+                throw (IOException) ex.getCause();
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while resizing image");
+        }
+    }
+
+    private BufferedImage decode(InputStream inputStream) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            if (imageInputStream == null)
+                return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext())
+                return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long width = reader.getWidth(0), height = reader.getHeight(0);
+                if (width * height > maxPixels)
+                    throw new ImageTooLargeException(width, height, maxPixels);
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves the image until one more halving would undershoot, then draws the rest in one bilinear step; a single
+    // large bilinear reduction skips most source pixels and aliases badly.
+    private static BufferedImage scale(BufferedImage original, int width) {
+        BufferedImage scaled = original;
+        int currentWidth = original.getWidth(), currentHeight = original.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(1, (int) Math.round((double) original.getHeight() * currentWidth
+                    / original.getWidth()));
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(scaled, 0, 0, currentWidth, currentHeight, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            scaled = step;
+        } while (currentWidth > width);
+        return scaled;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", bytes);
+        return bytes.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.PropertyServer.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class ParallelUploader {
+
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    public ParallelUploader(@Value("${images.upload.parallel.threads:16}") int threads,
+            @Value("${images.upload.parallel.per-request:4}") int parallelism) {
+        this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("image-put-"));
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Runs the uploads with at most {@code images.upload.parallel.per-request} in flight and returns their results in
+     * the order they were given, whichever finishes first. The first failure cancels everything still running and is
+     * rethrown once every upload that had started has returned, so the caller can discard whatever did reach storage
+     * without racing a write that is still landing.
+     */
+    public <T> List<T> uploadAll(List<Callable<T>> uploads) throws IOException {
+        if (uploads.size() == 1)
+            return Collections.singletonList(call(uploads.get(0)));
+        List<T> results = new ArrayList<>(Collections.nCopies(uploads.size(), null));
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<T>, Integer> pending = new HashMap<>();
+        List<Tracked<T>> tracked = new ArrayList<>();
+        int next = 0;
+        try {
+            for (; next < uploads.size() && pending.size() < parallelism; next++)
+                pending.put(submit(completion, tracked, uploads.get(next)), next);
+            while (!pending.isEmpty()) {
+                Future<T> done = completion.take();
+                results.set(pending.remove(done), done.get());
+                if (next < uploads.size()) {
+                    pending.put(submit(completion, tracked, uploads.get(next)), next);
+                    next++;
+                }
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            cancel(pending.keySet(), tracked);
+            throw rethrow(ex.getCause());
+        } catch (InterruptedException ex) {
+            cancel(pending.keySet(), tracked);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while uploading");
+        }
+    }
+
+    private static <T> Future<T> submit(CompletionService<T> completion, List<Tracked<T>> tracked, Callable<T> upload) {
+        Tracked<T> task = new Tracked<>(upload);
+        tracked.add(task);
+        return completion.submit(task);
+    }
+
+    // Cancelling a running FutureTask only interrupts it and returns at once, so wait on the uploads themselves.
+    private static <T> void cancel(Collection<Future<T>> pending, List<Tracked<T>> tracked) {
+        tracked.forEach(Tracked::preventStart);
+        pending.forEach(future -> future.cancel(true));
+        boolean interrupted = Thread.interrupted();
+        for (Tracked<T> task : tracked) {
+            while (true) {
+                try {
+                    task.finished.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private static <T> T call(Callable<T> upload) throws IOException {
+        try {
+            return upload.call();
+        } catch (Exception ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException)
+            return (IOException) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        return new IOException(cause);
+    }
+
+    private static class Tracked<T> implements Callable<T> {
+
+        private final Callable<T> upload;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        Tracked(Callable<T> upload) {
+            this.upload = upload;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!started.compareAndSet(false, true))
+                throw new CancellationException();
+            try {
+                return upload.call();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        void preventStart() {
+            if (started.compareAndSet(false, true))
+                finished.countDown();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
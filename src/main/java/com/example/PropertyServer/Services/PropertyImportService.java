@@ -0,0 +1,206 @@
+package com.example.PropertyServer.Services;
+
+import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentPortfolios;
+import com.example.PropertyServer.Exceptions.AgentNotFoundException;
+import com.example.PropertyServer.Import.ImportReader;
+import com.example.PropertyServer.Import.ImportReport;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Repositories.AgentRepository;
+import com.example.PropertyServer.Search.Gazetteer;
+import com.example.PropertyServer.Search.PropertySearchIndex;
+import com.example.PropertyServer.Search.SearchResultCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class PropertyImportService {
+
+    public static final String KIND = "kind";
+
+    private static final Map<String, Class<? extends Property>> KINDS =
+            Map.of("rental", RentalProperty.class, "sale", SaleProperty.class);
+
+    @Autowired
+    AgentRepository agentRepository;
+
+    @Autowired
+    Gazetteer gazetteer;
+
+    @Autowired
+    PropertySearchIndex propertySearchIndex;
+
+    @Autowired
+    SearchResultCache searchResultCache;
+
+    @Autowired
+    AgentPortfolios agentPortfolios;
+
+    @Autowired
+    SavedSearchService savedSearchService;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${import.batch-size:50}")
+    int batchSize;
+
+    @Value("${import.commit-size:1000}")
+    int commitSize;
+
+    @Value("${import.max-errors:1000}")
+    int maxErrors;
+
+    public ImportReport importProperties(int agentId, String kind, ImportReader reader) throws IOException {
+        Agent agent = agentRepository.findById(agentId).orElseThrow(() -> new AgentNotFoundException(agentId));
+        ImportReport report = new ImportReport(maxErrors);
+        List<Row> chunk = new ArrayList<>();
+        while (true) {
+            ObjectNode node;
+            try {
+                node = reader.next();
+            } catch (IllegalArgumentException ex) {
+                report.row();
+                report.reject(reader.getLine(), Collections.singletonList(ex.getMessage()));
+                continue;
+            }
+            if (node == null)
+                break;
+            report.row();
+            Property property;
+            try {
+                property = toProperty(node, kind);
+            } catch (IllegalArgumentException ex) {
+                report.reject(reader.getLine(), Collections.singletonList(ex.getMessage()));
+                continue;
+            }
+            List<String> violations = validator.validate(property).stream()
+                    .map(ConstraintViolation::getMessage).sorted().collect(Collectors.toList());
+            if (!violations.isEmpty()) {
+                report.reject(reader.getLine(), violations);
+                continue;
+            }
+            property.setAgent(agent);
+            locate(property);
+            chunk.add(new Row(reader.getLine(), property));
+            if (chunk.size() >= commitSize) {
+                persist(chunk, report);
+                chunk.clear();
+            }
+        }
+        persist(chunk, report);
+        return report;
+    }
+
+    private Property toProperty(ObjectNode node, String defaultKind) {
+        JsonNode kindNode = node.remove(KIND);
+        String kind = kindNode == null || kindNode.isNull() ? defaultKind : kindNode.asText();
+        Class<? extends Property> type = kind == null ? null : KINDS.get(kind);
+        if (type == null)
+            throw new IllegalArgumentException("kind must be one of " + String.join(", ", KINDS.keySet()));
+        node.remove("id");
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("row does not describe a property: " + ex.getOriginalMessage());
+        }
+    }
+
+    private void locate(Property property) {
+        gazetteer.locate(property.getLocation().getPostCode()).ifPresent(coordinates -> {
+            property.setLatitude(coordinates.getLatitude());
+            property.setLongitude(coordinates.getLongitude());
+        });
+    }
+
+    /**
+     * Inserts the chunk in one transaction. When that fails the rows are retried one at a time, so a row the database
+     * refuses is rejected on its own rather than taking the rest of its chunk with it.
+     */
+    private void persist(List<Row> chunk, ImportReport report) {
+        if (chunk.isEmpty())
+            return;
+        List<Row> saved = chunk;
+        try {
+            insert(chunk);
+        } catch (PersistenceException | DataAccessException | TransactionException chunkFailure) {
+            saved = new ArrayList<>();
+            for (Row row : chunk) {
+                row.property.clearVersion();
+                try {
+                    insert(Collections.singletonList(row));
+                    saved.add(row);
+                } catch (PersistenceException | DataAccessException | TransactionException ex) {
+                    report.reject(row.line, Collections.singletonList("row was not saved: "
+                            + NestedExceptionUtils.getMostSpecificCause(ex).getMessage()));
+                }
+            }
+        }
+        for (Row row : saved) {
+            propertySearchIndex.index(row.property);
+            agentPortfolios.update(row.property);
+            savedSearchService.onCreated(row.property);
+        }
+        if (!saved.isEmpty())
+            searchResultCache.invalidateAll();
+        report.imported(saved.size());
+    }
+
+    private void insert(List<Row> rows) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < rows.size(); i++) {
+                entityManager.persist(rows.get(i).property);
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private static class Row {
+
+        private final int line;
+        private final Property property;
+
+        private Row(int line, Property property) {
+            this.line = line;
+            this.property = property;
+        }
+    }
+}
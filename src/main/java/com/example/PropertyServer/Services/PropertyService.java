@@ -1,23 +1,64 @@
 package com.example.PropertyServer.Services;
 
 import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentPortfolios;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
+import com.example.PropertyServer.Exceptions.InvalidCursorException;
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Pagination.Cursor;
+import com.example.PropertyServer.Pagination.CursorPage;
+import com.example.PropertyServer.Pagination.KeysetSpecification;
+import com.example.PropertyServer.Pagination.MultiGetResult;
+import com.example.PropertyServer.Pagination.SortOrder;
+import com.example.PropertyServer.Property.ImageUploadStatus;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.RentalProperty;
 import com.example.PropertyServer.Property.SaleProperty;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
 import com.example.PropertyServer.Repositories.AgentRepository;
 import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Repositories.PropertySearchRepository;
 import com.example.PropertyServer.Repositories.RentalPropertyRepository;
 import com.example.PropertyServer.Repositories.SalePropertyRepository;
+import com.example.PropertyServer.Search.Coordinates;
+import com.example.PropertyServer.Search.FacetBuckets;
+import com.example.PropertyServer.Search.FacetCounts;
+import com.example.PropertyServer.Search.Gazetteer;
+import com.example.PropertyServer.Search.GeoMatch;
+import com.example.PropertyServer.Search.PostcodeCount;
+import com.example.PropertyServer.Search.PostcodeTrie;
+import com.example.PropertyServer.Search.ProjectionField;
+import com.example.PropertyServer.Search.PropertySearchIndex;
+import com.example.PropertyServer.Search.SearchResultCache;
+import com.example.PropertyServer.Search.TextMatch;
+import com.example.PropertyServer.SpecificationBuilders.PlanCacheStats;
+import com.example.PropertyServer.SpecificationBuilders.PropertySpecificationBuilder;
 import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.persistence.Tuple;
 import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PropertyService {
@@ -43,37 +84,111 @@ public class PropertyService {
     @Autowired
     SpecificationBuilder<SaleProperty> salePropertySpecificationBuilder;
 
+    @Autowired
+    PropertySearchRepository propertySearchRepository;
+
+    @Autowired
+    PropertySearchIndex propertySearchIndex;
+
+    @Autowired
+    Gazetteer gazetteer;
+
+    @Autowired
+    SearchResultCache searchResultCache;
+
+    @Autowired
+    SavedSearchService savedSearchService;
+
+    @Autowired
+    AgentPortfolios agentPortfolios;
+
     @Autowired
     S3Service s3Service;
 
+    @Autowired
+    ImagePipeline imagePipeline;
+
+    @Autowired
+    ParallelUploader parallelUploader;
+
+    @Autowired
+    ImageResizer imageResizer;
+
+    @Value("${search.stream.fetch-size:500}")
+    int streamFetchSize;
+
+    @Value("${search.facets.price-buckets:100000,200000,300000,500000,1000000}")
+    int[] priceBuckets;
+
+    @Value("${search.facets.rent-buckets:500,1000,1500,2000,3000}")
+    int[] rentBuckets;
+
     public RentalProperty createRentalProperty(RentalProperty property, int agentId, MultipartFile[] images) throws IOException {
-        Agent agent = agentRepository.findById(agentId).orElseThrow(() -> new AgentNotFoundException(agentId));
-        property = rentalPropertyRepository.save(property);
-        addImages(property, images);
-        property.setAgent(agent);
-        return rentalPropertyRepository.save(property);
+        return createProperty(rentalPropertyRepository, property, agentId, images);
     }
 
     public SaleProperty createSaleProperty(SaleProperty property, int agentId, MultipartFile[] images) throws IOException {
+        return createProperty(salePropertyRepository, property, agentId, images);
+    }
+
+    private <T extends Property> T createProperty(PropertyBaseRepository<T> repository, T property, int agentId,
+            MultipartFile[] images) throws IOException {
         Agent agent = agentRepository.findById(agentId).orElseThrow(() -> new AgentNotFoundException(agentId));
-        property = salePropertyRepository.save(property);
-        addImages(property, images);
+        locate(property);
         property.setAgent(agent);
-        return salePropertyRepository.save(property);
+        ImagePipeline.Upload upload = imagePipeline.spool(images);
+        try {
+            property = repository.save(property);
+        } catch (RuntimeException ex) {
+            upload.discard();
+            throw ex;
+        }
+        imagePipeline.submit(property.getId(), upload);
+        propertySearchIndex.index(property);
+        searchResultCache.evict(property);
+        agentPortfolios.update(property);
+        savedSearchService.onCreated(property);
+        return property;
     }
 
-    private void addImages(Property property, MultipartFile[] images) throws IOException {
-        for(MultipartFile multipartFile : images) {
-            property.addImage(s3Service.save(multipartFile,
-                    buildFilename(property.getId(), property.getImages().size())));
-        }
+    private void locate(Property property) {
+        if (property.getLocation() == null)
+            return;
+        gazetteer.locate(property.getLocation().getPostCode()).ifPresent(coordinates -> {
+            property.setLatitude(coordinates.getLatitude());
+            property.setLongitude(coordinates.getLongitude());
+        });
     }
 
+    // Uploads run while no transaction or connection is held; the row is written once they have all finished. Keys
+    // are unique per upload, so an overlapping upload to the same property can neither overwrite nor discard them.
     public Property addImagesToProperty(int id, MultipartFile[] images) throws IOException {
-        Property property = propertyBaseRepository.findById(id)
-                .orElseThrow(() -> new PropertyNotFoundException(id));
-        addImages(property, images);
-        return propertyBaseRepository.save(property);
+        if (!propertyBaseRepository.existsById(id))
+            throw new PropertyNotFoundException(id);
+        List<String> filenames = new ArrayList<>();
+        List<Callable<Map.Entry<URL, Map<Integer, URL>>>> uploads = new ArrayList<>();
+        for (MultipartFile multipartFile : images) {
+            String filename = buildFilename(id);
+            filenames.add(filename);
+            filenames.addAll(imageResizer.variantFilenames(filename));
+            uploads.add(() -> Map.entry(s3Service.save(multipartFile, filename),
+                    imageResizer.save(multipartFile, filename)));
+        }
+        Property property;
+        try {
+            property = imagePipeline.attach(id, parallelUploader.uploadAll(uploads));
+        } catch (IOException | RuntimeException ex) {
+            s3Service.discard(filenames, ex);
+            throw ex;
+        }
+        propertySearchIndex.index(property);
+        searchResultCache.evict(property);
+        agentPortfolios.update(property);
+        return property;
+    }
+
+    public ImageUploadStatus getImageStatus(int id) {
+        return imagePipeline.getStatus(id).orElseGet(() -> ImageUploadStatus.untracked(getProperty(id)));
     }
 
     public RentalProperty getRentalProperty(int id) {
@@ -85,20 +200,439 @@ public class PropertyService {
                 new PropertyNotFoundException(id));
     }
 
+    public MultiGetResult<Property> getProperties(List<Integer> ids) {
+        List<Integer> distinct = MultiGetResult.distinct(ids);
+        return MultiGetResult.of(distinct, propertyBaseRepository.findAllById(distinct), Property::getId);
+    }
+
     public List<Property> getAllProperties(Map<String, String> searchParams) {
+        return cached(new SearchResultCache.Key(Property.class, searchParams), () -> findAllProperties(searchParams),
+                list -> list);
+    }
+
+    private List<Property> findAllProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return findIndexed(propertyBaseRepository, propertySearchIndex.search(Property.class, searchParams),
+                    0, Integer.MAX_VALUE);
         return propertyBaseRepository.findAll(specificationBuilder.build(searchParams));
     }
 
     public List<RentalProperty> getAllRentalProperties(Map<String, String> searchParams) {
+        return cached(new SearchResultCache.Key(RentalProperty.class, searchParams),
+                () -> findAllRentalProperties(searchParams), list -> list);
+    }
+
+    private List<RentalProperty> findAllRentalProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return findIndexed(rentalPropertyRepository, propertySearchIndex.search(RentalProperty.class, searchParams),
+                    0, Integer.MAX_VALUE);
         return rentalPropertyRepository.findAll(rentalPropertySpecificationBuilder.build(searchParams));
     }
 
     public List<SaleProperty> getAllSaleProperties(Map<String, String> searchParams) {
+        return cached(new SearchResultCache.Key(SaleProperty.class, searchParams),
+                () -> findAllSaleProperties(searchParams), list -> list);
+    }
+
+    private List<SaleProperty> findAllSaleProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return findIndexed(salePropertyRepository, propertySearchIndex.search(SaleProperty.class, searchParams),
+                    0, Integer.MAX_VALUE);
         return salePropertyRepository.findAll(salePropertySpecificationBuilder.build(searchParams));
     }
 
-    private String buildFilename(int id, int index) {
-        return "property_" + id + "_image_" + index;
+    public CursorPage<Property> getAllProperties(Map<String, String> searchParams, int limit, String after,
+            SortOrder sort) {
+        return cached(new SearchResultCache.Key(Property.class, searchParams, limit, after, sort),
+                () -> findAllProperties(searchParams, limit, after, sort), CursorPage::getContent);
+    }
+
+    private CursorPage<Property> findAllProperties(Map<String, String> searchParams, int limit, String after,
+            SortOrder sort) {
+        if (sort == null && propertySearchIndex.isEnabled())
+            return findIndexedPage(propertyBaseRepository, propertySearchIndex.search(Property.class, searchParams),
+                    limit, after);
+        return findPage(Property.class, specificationBuilder.build(searchParams), limit, after, sort);
+    }
+
+    public CursorPage<RentalProperty> getAllRentalProperties(Map<String, String> searchParams, int limit, String after,
+            SortOrder sort) {
+        return cached(new SearchResultCache.Key(RentalProperty.class, searchParams, limit, after, sort),
+                () -> findAllRentalProperties(searchParams, limit, after, sort), CursorPage::getContent);
+    }
+
+    private CursorPage<RentalProperty> findAllRentalProperties(Map<String, String> searchParams, int limit,
+            String after, SortOrder sort) {
+        if (sort == null && propertySearchIndex.isEnabled())
+            return findIndexedPage(rentalPropertyRepository,
+                    propertySearchIndex.search(RentalProperty.class, searchParams), limit, after);
+        return findPage(RentalProperty.class, rentalPropertySpecificationBuilder.build(searchParams), limit, after,
+                sort);
+    }
+
+    public CursorPage<SaleProperty> getAllSaleProperties(Map<String, String> searchParams, int limit, String after,
+            SortOrder sort) {
+        return cached(new SearchResultCache.Key(SaleProperty.class, searchParams, limit, after, sort),
+                () -> findAllSaleProperties(searchParams, limit, after, sort), CursorPage::getContent);
+    }
+
+    private CursorPage<SaleProperty> findAllSaleProperties(Map<String, String> searchParams, int limit, String after,
+            SortOrder sort) {
+        if (sort == null && propertySearchIndex.isEnabled())
+            return findIndexedPage(salePropertyRepository,
+                    propertySearchIndex.search(SaleProperty.class, searchParams), limit, after);
+        return findPage(SaleProperty.class, salePropertySpecificationBuilder.build(searchParams), limit, after, sort);
+    }
+
+    public CursorPage<Map<String, Object>> getAllProperties(Map<String, String> searchParams, List<String> fields,
+            int limit, String after) {
+        List<ProjectionField> requested = fields.stream().map(ProjectionField::of).distinct()
+                .collect(Collectors.toList());
+        if (requested.stream().noneMatch(ProjectionField::isSubtypeField))
+            return findProjectedPage(Property.class, specificationBuilder.build(searchParams), fields, limit, after);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        PropertySpecificationBuilder.forSubtype(searchParams, RentalProperty.class).ifPresent(filters -> rows.addAll(
+                project(RentalProperty.class, keyset(rentalPropertySpecificationBuilder.build(filters), after),
+                        requested, limit + 1)));
+        PropertySpecificationBuilder.forSubtype(searchParams, SaleProperty.class).ifPresent(filters -> rows.addAll(
+                project(SaleProperty.class, keyset(salePropertySpecificationBuilder.build(filters), after),
+                        requested, limit + 1)));
+        rows.sort(Comparator.comparing(row -> (Integer) row.get(ProjectionField.ID.getName())));
+        return toProjectedPage(rows, requested, limit);
+    }
+
+    public CursorPage<Map<String, Object>> getAllRentalProperties(Map<String, String> searchParams,
+            List<String> fields, int limit, String after) {
+        return findProjectedPage(RentalProperty.class, rentalPropertySpecificationBuilder.build(searchParams), fields,
+                limit, after);
+    }
+
+    public CursorPage<Map<String, Object>> getAllSaleProperties(Map<String, String> searchParams, List<String> fields,
+            int limit, String after) {
+        return findProjectedPage(SaleProperty.class, salePropertySpecificationBuilder.build(searchParams), fields,
+                limit, after);
+    }
+
+    public long countProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return propertySearchIndex.search(Property.class, searchParams).cardinality();
+        return propertySearchRepository.count(Property.class, specificationBuilder.build(searchParams));
+    }
+
+    public long countRentalProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return propertySearchIndex.search(RentalProperty.class, searchParams).cardinality();
+        return propertySearchRepository.count(RentalProperty.class,
+                rentalPropertySpecificationBuilder.build(searchParams));
+    }
+
+    public long countSaleProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return propertySearchIndex.search(SaleProperty.class, searchParams).cardinality();
+        return propertySearchRepository.count(SaleProperty.class, salePropertySpecificationBuilder.build(searchParams));
+    }
+
+    public boolean existsProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return !propertySearchIndex.search(Property.class, searchParams).isEmpty();
+        return propertySearchRepository.exists(Property.class, specificationBuilder.build(searchParams));
+    }
+
+    public boolean existsRentalProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return !propertySearchIndex.search(RentalProperty.class, searchParams).isEmpty();
+        return propertySearchRepository.exists(RentalProperty.class,
+                rentalPropertySpecificationBuilder.build(searchParams));
+    }
+
+    public boolean existsSaleProperties(Map<String, String> searchParams) {
+        if (propertySearchIndex.isEnabled())
+            return !propertySearchIndex.search(SaleProperty.class, searchParams).isEmpty();
+        return propertySearchRepository.exists(SaleProperty.class, salePropertySpecificationBuilder.build(searchParams));
+    }
+
+    public CursorPage<Property> getAllPropertiesNear(Map<String, String> searchParams, String postcode,
+            double radiusKm, int limit, String after) {
+        return findNearPage(Property.class, propertyBaseRepository, searchParams, postcode, radiusKm, limit, after);
+    }
+
+    public CursorPage<RentalProperty> getAllRentalPropertiesNear(Map<String, String> searchParams, String postcode,
+            double radiusKm, int limit, String after) {
+        return findNearPage(RentalProperty.class, rentalPropertyRepository, searchParams, postcode, radiusKm, limit,
+                after);
+    }
+
+    public CursorPage<SaleProperty> getAllSalePropertiesNear(Map<String, String> searchParams, String postcode,
+            double radiusKm, int limit, String after) {
+        return findNearPage(SaleProperty.class, salePropertyRepository, searchParams, postcode, radiusKm, limit,
+                after);
+    }
+
+    public CursorPage<Property> getAllPropertiesMatching(Map<String, String> searchParams, String query, int limit,
+            String after) {
+        return findTextPage(Property.class, propertyBaseRepository, searchParams, query, limit, after);
+    }
+
+    public CursorPage<RentalProperty> getAllRentalPropertiesMatching(Map<String, String> searchParams, String query,
+            int limit, String after) {
+        return findTextPage(RentalProperty.class, rentalPropertyRepository, searchParams, query, limit, after);
+    }
+
+    public CursorPage<SaleProperty> getAllSalePropertiesMatching(Map<String, String> searchParams, String query,
+            int limit, String after) {
+        return findTextPage(SaleProperty.class, salePropertyRepository, searchParams, query, limit, after);
+    }
+
+    private <R> R cached(SearchResultCache.Key key, Supplier<R> loader,
+            Function<R, List<? extends Property>> rows) {
+        if (!searchResultCache.isEnabled())
+            return loader.get();
+        R result = searchResultCache.get(key);
+        if (result != null)
+            return result;
+        long version = searchResultCache.version();
+        result = loader.get();
+        List<? extends Property> content = rows.apply(result);
+        content.forEach(property -> Hibernate.initialize(property.getImages()));
+        searchResultCache.put(key, result, content, version);
+        return result;
+    }
+
+    public FacetCounts getFacets(Map<String, String> searchParams) {
+        FacetBuckets priceFacets = new FacetBuckets(priceBuckets), rentFacets = new FacetBuckets(rentBuckets);
+        FacetCounts counts = new FacetCounts(priceFacets, rentFacets);
+        if (propertySearchIndex.isEnabled()) {
+            propertySearchIndex.facets(searchParams, counts);
+            return counts;
+        }
+        PropertySpecificationBuilder.forSubtype(searchParams, RentalProperty.class).ifPresent(filters ->
+                propertySearchRepository.facetRows(RentalProperty.class, rentalPropertySpecificationBuilder.build(filters),
+                        "monthlyRent", rentFacets).forEach(row -> counts.add(row, true)));
+        PropertySpecificationBuilder.forSubtype(searchParams, SaleProperty.class).ifPresent(filters ->
+                propertySearchRepository.facetRows(SaleProperty.class, salePropertySpecificationBuilder.build(filters),
+                        "price", priceFacets).forEach(row -> counts.add(row, false)));
+        return counts;
+    }
+
+    public Map<String, Object> getSearchStats() {
+        Map<String, PlanCacheStats> planCache = new LinkedHashMap<>();
+        planCache.put("properties", specificationBuilder.getPlanCacheStats());
+        planCache.put("rentalProperties", rentalPropertySpecificationBuilder.getPlanCacheStats());
+        planCache.put("saleProperties", salePropertySpecificationBuilder.getPlanCacheStats());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("planCache", planCache);
+        stats.put("resultCache", searchResultCache.getStats());
+        return stats;
+    }
+
+    public CursorPage<PostcodeCount> getPostcodes(String prefix, int limit, String after) {
+        String afterPostcode = after == null ? null : Cursor.decode(after).getSortValue();
+        List<PostcodeCount> postcodes = propertySearchIndex.isEnabled()
+                ? propertySearchIndex.postcodes(prefix, afterPostcode, limit + 1)
+                : propertySearchRepository.countByPostcode(PostcodeTrie.normalise(prefix), afterPostcode, limit + 1);
+        if (postcodes.size() <= limit)
+            return new CursorPage<>(postcodes, null);
+        List<PostcodeCount> content = postcodes.subList(0, limit);
+        return new CursorPage<>(content, new Cursor(content.get(limit - 1).getPostcode(), 0).encode());
+    }
+
+    private <T extends Property> CursorPage<T> findNearPage(Class<T> type, PropertyBaseRepository<T> repository,
+            Map<String, String> searchParams, String postcode, double radiusKm, int limit, String after) {
+        if (!propertySearchIndex.isEnabled())
+            throw new InvalidSearchParameterException("Radius search requires the search index to be enabled.");
+        Coordinates origin = gazetteer.locate(postcode).orElseThrow(() ->
+                new InvalidSearchParameterException("Postcode \"" + postcode + "\" not found."));
+        Cursor cursor = after == null ? null : Cursor.decode(after);
+        double afterDistance = cursor == null ? -1 : parseRank(cursor, after);
+        List<GeoMatch> page = new ArrayList<>();
+        for (GeoMatch match : propertySearchIndex.near(type, searchParams, origin, radiusKm)) {
+            if (match.getDistanceKm() < afterDistance
+                    || (match.getDistanceKm() == afterDistance && match.getId() <= cursor.getId()))
+                continue;
+            page.add(match);
+            if (page.size() > limit)
+                break;
+        }
+        List<T> content = findInOrder(repository, page.stream().limit(limit).map(GeoMatch::getId)
+                .collect(Collectors.toList()));
+        if (page.size() <= limit)
+            return new CursorPage<>(content, null);
+        GeoMatch last = page.get(limit - 1);
+        return new CursorPage<>(content, new Cursor(Double.toString(last.getDistanceKm()), last.getId()).encode());
+    }
+
+    private <T extends Property> CursorPage<T> findTextPage(Class<T> type, PropertyBaseRepository<T> repository,
+            Map<String, String> searchParams, String query, int limit, String after) {
+        if (!propertySearchIndex.isEnabled())
+            throw new InvalidSearchParameterException("Text search requires the search index to be enabled.");
+        if (query.trim().isEmpty())
+            throw new InvalidSearchParameterException("Search text must not be empty.");
+        Cursor cursor = after == null ? null : Cursor.decode(after);
+        long generation = 0;
+        double afterScore = Double.POSITIVE_INFINITY;
+        if (cursor != null) {
+            String[] rank = cursor.getSortValue() == null ? new String[0] : cursor.getSortValue().split(":", 2);
+            if (rank.length != 2)
+                throw new InvalidCursorException(after);
+            try {
+                generation = Long.parseLong(rank[0]);
+                afterScore = Double.parseDouble(rank[1]);
+            } catch (NumberFormatException ex) {
+                throw new InvalidCursorException(after);
+            }
+        }
+        List<TextMatch> page = new ArrayList<>();
+        for (TextMatch match : propertySearchIndex.text(type, searchParams, query, generation)) {
+            if (match.getScore() > afterScore
+                    || (match.getScore() == afterScore && match.getId() <= cursor.getId()))
+                continue;
+            page.add(match);
+            if (page.size() > limit)
+                break;
+        }
+        List<T> content = findInOrder(repository, page.stream().limit(limit).map(TextMatch::getId)
+                .collect(Collectors.toList()));
+        if (page.size() <= limit)
+            return new CursorPage<>(content, null);
+        TextMatch last = page.get(limit - 1);
+        return new CursorPage<>(content, new Cursor(last.getGeneration() + ":" + last.getScore(), last.getId())
+                .encode());
+    }
+
+    private static <T extends Property> List<T> findInOrder(PropertyBaseRepository<T> repository, List<Integer> ids) {
+        Map<Integer, T> rows = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Property::getId, Function.identity()));
+        return ids.stream().map(rows::get).filter(row -> row != null).collect(Collectors.toList());
+    }
+
+    private static double parseRank(Cursor cursor, String token) {
+        if (cursor.getSortValue() == null)
+            throw new InvalidCursorException(token);
+        try {
+            return Double.parseDouble(cursor.getSortValue());
+        } catch (NumberFormatException ex) {
+            throw new InvalidCursorException(token);
+        }
+    }
+
+    private <T extends Property> CursorPage<T> findPage(Class<T> type, Specification<T> spec, int limit, String after,
+            SortOrder sort) {
+        if (sort == null) {
+            if (after != null)
+                spec = spec.and(KeysetSpecification.after(Cursor.decode(after)));
+            return toPage(propertySearchRepository.findAll(type, spec, limit + 1), limit);
+        }
+        sort.checkAvailableOn(type);
+        if (after != null)
+            spec = spec.and(KeysetSpecification.after(Cursor.decode(after), sort));
+        List<T> rows = propertySearchRepository.findAll(type, spec, sort, limit + 1);
+        if (rows.size() <= limit)
+            return new CursorPage<>(rows, null);
+        List<T> content = rows.subList(0, limit);
+        T last = content.get(limit - 1);
+        return new CursorPage<>(content, new Cursor(String.valueOf(sort.getField().valueOf(last)), last.getId())
+                .encode());
+    }
+
+    private <T extends Property> CursorPage<Map<String, Object>> findProjectedPage(Class<T> type, Specification<T> spec,
+            List<String> fields, int limit, String after) {
+        List<ProjectionField> requested = fields.stream().map(ProjectionField::of).distinct()
+                .collect(Collectors.toList());
+        requested.forEach(field -> field.checkApplicable(type));
+        return toProjectedPage(project(type, keyset(spec, after), requested, limit + 1), requested, limit);
+    }
+
+    private static <T extends Property> Specification<T> keyset(Specification<T> spec, String after) {
+        return after == null ? spec : spec.and(KeysetSpecification.after(Cursor.decode(after)));
+    }
+
+    private CursorPage<Map<String, Object>> toProjectedPage(List<Map<String, Object>> rows,
+            List<ProjectionField> requested, int limit) {
+        List<Map<String, Object>> content = rows.size() > limit ? rows.subList(0, limit) : rows;
+        List<Integer> ids = content.stream().map(row -> (Integer) row.get(ProjectionField.ID.getName()))
+                .collect(Collectors.toList());
+        if (requested.contains(ProjectionField.IMAGES)) {
+            Map<Integer, List<URL>> images = propertySearchRepository.findImages(ids);
+            content.forEach(row -> row.put(ProjectionField.IMAGES.getName(),
+                    images.getOrDefault((Integer) row.get(ProjectionField.ID.getName()), List.of())));
+        }
+        String next = rows.size() > limit ? new Cursor(null, ids.get(ids.size() - 1)).encode() : null;
+        return new CursorPage<>(new ArrayList<>(content), next);
+    }
+
+    private <T extends Property> List<Map<String, Object>> project(Class<T> type, Specification<T> spec,
+            List<ProjectionField> requested, int limit) {
+        List<ProjectionField> columns = new ArrayList<>(List.of(ProjectionField.ID));
+        requested.stream()
+                .filter(field -> field.isColumn() && field != ProjectionField.ID && field.isAvailableOn(type))
+                .forEach(columns::add);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : propertySearchRepository.findProjected(type, spec, columns, limit)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(ProjectionField.ID.getName(), tuple.get(ProjectionField.ID.getName()));
+            for (ProjectionField field : requested) {
+                if (field.isColumn() && field != ProjectionField.ID)
+                    row.put(field.getName(), field.isAvailableOn(type) ? tuple.get(field.getName()) : null);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private <T extends Property> CursorPage<T> findIndexedPage(PropertyBaseRepository<T> repository, BitSet ids,
+            int limit, String after) {
+        int from = after == null ? 0 : Cursor.decode(after).getId() + 1;
+        return toPage(findIndexed(repository, ids, from, limit + 1), limit);
+    }
+
+    private <T extends Property> List<T> findIndexed(PropertyBaseRepository<T> repository, BitSet ids,
+            int from, int limit) {
+        List<Integer> page = new ArrayList<>();
+        for (int id = ids.nextSetBit(from); id >= 0 && page.size() < limit; id = ids.nextSetBit(id + 1))
+            page.add(id);
+        if (page.isEmpty())
+            return new ArrayList<>();
+        List<T> rows = new ArrayList<>(repository.findAllById(page));
+        rows.sort(Comparator.comparing(Property::getId));
+        return rows;
+    }
+
+    private <T extends Property> CursorPage<T> toPage(List<T> rows, int limit) {
+        if (rows.size() <= limit)
+            return new CursorPage<>(rows, null);
+        List<T> content = rows.subList(0, limit);
+        return new CursorPage<>(content, new Cursor(null, content.get(limit - 1).getId()).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllProperties(Map<String, String> searchParams, Consumer<? super Property> consumer) {
+        stream(Property.class, specificationBuilder.build(searchParams), consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllRentalProperties(Map<String, String> searchParams, Consumer<? super RentalProperty> consumer) {
+        stream(RentalProperty.class, rentalPropertySpecificationBuilder.build(searchParams), consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllSaleProperties(Map<String, String> searchParams, Consumer<? super SaleProperty> consumer) {
+        stream(SaleProperty.class, salePropertySpecificationBuilder.build(searchParams), consumer);
+    }
+
+    private <T extends Property> void stream(Class<T> type, Specification<T> spec, Consumer<? super T> consumer) {
+        try (Stream<T> rows = propertySearchRepository.stream(type, spec, streamFetchSize)) {
+            Iterator<T> iterator = rows.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++count % streamFetchSize == 0)
+                    propertySearchRepository.clear();
+            }
+        }
+    }
+
+    static String buildFilename(int id) {
+        return "property_" + id + "_image_" + UUID.randomUUID();
     }
 
 }
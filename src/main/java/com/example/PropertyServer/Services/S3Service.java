@@ -1,16 +1,21 @@
 package com.example.PropertyServer.Services;
 
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 @Service
 public class S3Service {
@@ -18,6 +23,12 @@ public class S3Service {
     @Autowired
     AmazonS3 s3;
 
+    @Autowired
+    ChunkedUploader chunkedUploader;
+
+    @Value("${s3.multipart.threshold-bytes:16777216}")
+    long multipartThreshold;
+
     public final String S3_BUCKET_NAME;
 
     public S3Service(@Value("${s3.bucket.name}") String bucketname) {
@@ -25,10 +36,68 @@ public class S3Service {
     }
 
 
+    /**
+     * Streams the part straight to the bucket. Only a part of unknown length is spooled, since the put needs a content
+     * length up front, and that spool file is removed before returning.
+     */
     public URL save(MultipartFile multipartFile, String filename) throws IOException {
-        Path tempFile = Files.createTempFile("temp", "tmp");
-        multipartFile.transferTo(tempFile);
-        PutObjectResult putObjectResult =  s3.putObject(S3_BUCKET_NAME, filename, tempFile.toFile());
+        if (multipartFile.getSize() < 0)
+            return saveSpooled(multipartFile, filename);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(multipartFile.getSize());
+        metadata.setContentType(multipartFile.getContentType());
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            put(filename, inputStream, metadata);
+        }
+        return s3.getUrl(S3_BUCKET_NAME, filename);
+    }
+
+    private URL saveSpooled(MultipartFile multipartFile, String filename) throws IOException {
+        Path spool = Files.createTempFile("s3-upload-", ".spool");
+        try {
+            multipartFile.transferTo(spool.toFile());
+            return save(spool, filename);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    public URL save(Path file, String filename) throws IOException {
+        if (Files.size(file) < multipartThreshold) {
+            s3.putObject(S3_BUCKET_NAME, filename, file.toFile());
+        } else {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(Files.size(file));
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                chunkedUploader.upload(S3_BUCKET_NAME, filename, inputStream, metadata);
+            }
+        }
         return s3.getUrl(S3_BUCKET_NAME, filename);
     }
+
+    public URL save(byte[] content, String contentType, String filename) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setContentType(contentType);
+        put(filename, new ByteArrayInputStream(content), metadata);
+        return s3.getUrl(S3_BUCKET_NAME, filename);
+    }
+
+    // Objects at or above the threshold go up in parts, so a failure re-sends one part rather than the whole object.
+    private void put(String filename, InputStream inputStream, ObjectMetadata metadata) throws IOException {
+        if (metadata.getContentLength() < multipartThreshold)
+            s3.putObject(new PutObjectRequest(S3_BUCKET_NAME, filename, inputStream, metadata));
+        else
+            chunkedUploader.upload(S3_BUCKET_NAME, filename, inputStream, metadata);
+    }
+
+    public void discard(List<String> filenames, Exception cause) {
+        if (filenames.isEmpty())
+            return;
+        try {
+            s3.deleteObjects(new DeleteObjectsRequest(S3_BUCKET_NAME).withKeys(filenames.toArray(new String[0])));
+        } catch (RuntimeException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
 }
@@ -0,0 +1,237 @@
+package com.example.PropertyServer.Services;
+
+import com.example.PropertyServer.Exceptions.InvalidCursorException;
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Exceptions.SavedSearchNotFoundException;
+import com.example.PropertyServer.Pagination.Cursor;
+import com.example.PropertyServer.Pagination.CursorPage;
+import com.example.PropertyServer.Pagination.MultiGetResult;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Repositories.SavedSearchRepository;
+import com.example.PropertyServer.Search.PropertyMatcher;
+import com.example.PropertyServer.Search.SavedSearch;
+import com.example.PropertyServer.Search.SavedSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+public class SavedSearchService {
+
+    @Autowired
+    PropertyBaseRepository<Property> propertyBaseRepository;
+
+    @Autowired
+    SavedSearchRepository savedSearchRepository;
+
+    @Value("${search.saved.max-per-client:20}")
+    int maxPerClient;
+
+    @Value("${search.saved.max-pending:1000}")
+    int maxPending;
+
+    @Value("${search.saved.sse-timeout-ms:1800000}")
+    long sseTimeoutMs;
+
+    private final SavedSearchIndex index = new SavedSearchIndex();
+    private final Map<Integer, SavedSearch> searches = new HashMap<>();
+    private final Map<String, Integer> searchesPerClient = new HashMap<>();
+    private final Map<Integer, Deque<Match>> pending = new HashMap<>();
+    private final Map<Integer, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor[] notifiers;
+    private int nextSequence = 1;
+
+    /**
+     * Match sequences restart with every boot while the searches themselves are stored, so each cursor carries the
+     * boot it was issued in and a cursor from an earlier boot is rejected instead of skipping the new matches.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /**
+     * Events are sent from {@code search.saved.notify-threads} single-threaded lanes, so a slow subscriber never holds
+     * up the request that created the listing, and each search's events stay in order on its lane. When a lane's
+     * queue is full the event is dropped; the subscriber can catch up from {@link #getMatches} with its last event id.
+     */
+    public SavedSearchService(@Value("${search.saved.notify-threads:2}") int notifyThreads,
+            @Value("${search.saved.notify-queue-capacity:1000}") int notifyQueueCapacity) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("saved-search-sse-");
+        this.notifiers = new ThreadPoolExecutor[Math.max(1, notifyThreads)];
+        for (int i = 0; i < notifiers.length; i++)
+            notifiers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(notifyQueueCapacity), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Registers the search for the given client address, which may hold at most {@code search.saved.max-per-client}
+     * searches at once, so one caller cannot use up the capacity meant for everyone else.
+     */
+    public synchronized SavedSearch register(SavedSearch search, String client) {
+        if (search.getPropertyClass() == null)
+            throw new InvalidSearchParameterException("Saved search type must be one of " + SavedSearch.PROPERTIES
+                    + ", " + SavedSearch.RENTAL_PROPERTIES + " or " + SavedSearch.SALE_PROPERTIES + ".");
+        if (search.getFilters() == null)
+            search.setFilters(new HashMap<>());
+        PropertyMatcher.validate(search.getPropertyClass(), search.getFilters());
+        if (searchesPerClient.getOrDefault(client, 0) >= maxPerClient)
+            throw new InvalidSearchParameterException("No more than " + maxPerClient
+                    + " saved searches allowed per client.");
+        search.setId(null);
+        search.setClient(client);
+        search.setOwnerToken(UUID.randomUUID().toString());
+        search = savedSearchRepository.save(search);
+        track(search);
+        return search;
+    }
+
+    /**
+     * Saved searches are stored, so they survive a restart and are re-indexed here. Their pending matches are a
+     * bounded in-memory buffer and start empty again, as do SSE subscriptions.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void loadSearches() {
+        savedSearchRepository.findAll().forEach(this::track);
+    }
+
+    private void track(SavedSearch search) {
+        searches.put(search.getId(), search);
+        searchesPerClient.merge(search.getClient(), 1, Integer::sum);
+        pending.put(search.getId(), new ArrayDeque<>());
+        index.add(search);
+    }
+
+    public synchronized SavedSearch getSearch(int id) {
+        SavedSearch search = searches.get(id);
+        if (search == null)
+            throw new SavedSearchNotFoundException(id);
+        return search;
+    }
+
+    /**
+     * Deletes the search when the token matches the one it was registered with. A wrong token is answered like an
+     * unknown id, so callers cannot probe which ids exist.
+     */
+    public void deleteSearch(int id, String ownerToken) {
+        synchronized (this) {
+            SavedSearch search = getSearch(id);
+            if (search.getOwnerToken() == null || ownerToken == null || !MessageDigest.isEqual(
+                    search.getOwnerToken().getBytes(StandardCharsets.UTF_8), ownerToken.getBytes(StandardCharsets.UTF_8)))
+                throw new SavedSearchNotFoundException(id);
+            savedSearchRepository.deleteById(id);
+            index.remove(search);
+            searches.remove(id);
+            searchesPerClient.computeIfPresent(search.getClient(), (client, count) -> count == 1 ? null : count - 1);
+            pending.remove(id);
+        }
+        List<SseEmitter> subscribers = emitters.remove(id);
+        if (subscribers != null)
+            subscribers.forEach(SseEmitter::complete);
+    }
+
+    public CursorPage<Property> getMatches(int id, int limit, String after) {
+        int afterSequence = 0;
+        if (after != null) {
+            Cursor cursor = Cursor.decode(after);
+            if (!epoch.equals(cursor.getSortValue()))
+                throw new InvalidCursorException(after);
+            afterSequence = cursor.getId();
+        }
+        List<Match> page = new ArrayList<>();
+        synchronized (this) {
+            getSearch(id);
+            for (Match match : pending.get(id)) {
+                if (match.sequence <= afterSequence)
+                    continue;
+                page.add(match);
+                if (page.size() > limit)
+                    break;
+            }
+        }
+        List<Match> content = page.size() > limit ? page.subList(0, limit) : page;
+        List<Integer> ids = content.stream().map(match -> match.propertyId).collect(Collectors.toList());
+        List<Property> properties = MultiGetResult.of(ids, propertyBaseRepository.findAllById(ids), Property::getId)
+                .getContent();
+        String next = page.size() > limit ? new Cursor(epoch, content.get(limit - 1).sequence).encode() : null;
+        return new CursorPage<>(properties, next);
+    }
+
+    public SseEmitter subscribe(int id) {
+        getSearch(id);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        List<SseEmitter> subscribers = emitters.computeIfAbsent(id, key -> new CopyOnWriteArrayList<>());
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(ex -> subscribers.remove(emitter));
+        return emitter;
+    }
+
+    public void onCreated(Property property) {
+        Map<Integer, Integer> matched = new HashMap<>();
+        synchronized (this) {
+            for (SavedSearch search : index.match(property)) {
+                Deque<Match> matches = pending.get(search.getId());
+                Match match = new Match(nextSequence++, property.getId());
+                matches.addLast(match);
+                if (matches.size() > maxPending)
+                    matches.removeFirst();
+                matched.put(search.getId(), match.sequence);
+            }
+        }
+        matched.forEach((searchId, sequence) -> notifiers[Math.floorMod(searchId, notifiers.length)]
+                .execute(() -> notify(searchId, sequence, property)));
+    }
+
+    private void notify(int searchId, int sequence, Property property) {
+        List<SseEmitter> subscribers = emitters.get(searchId);
+        if (subscribers == null)
+            return;
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().id(new Cursor(epoch, sequence).encode()).name("match").data(property));
+            } catch (IOException | IllegalStateException ex) {
+                subscribers.remove(emitter);
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor notifier : notifiers)
+            notifier.shutdown();
+    }
+
+    private static class Match {
+
+        private final int sequence;
+        private final int propertyId;
+
+        private Match(int sequence, int propertyId) {
+            this.sequence = sequence;
+            this.propertyId = propertyId;
+        }
+    }
+}
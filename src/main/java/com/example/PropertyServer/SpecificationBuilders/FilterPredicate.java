@@ -0,0 +1,11 @@
+package com.example.PropertyServer.SpecificationBuilders;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+@FunctionalInterface
+public interface FilterPredicate<T> {
+
+    Predicate toPredicate(Root<T> root, CriteriaBuilder criteriaBuilder, String value);
+}
@@ -0,0 +1,31 @@
+package com.example.PropertyServer.SpecificationBuilders;
+
+public class PlanCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final int size;
+
+    public PlanCacheStats(long hits, long misses, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.PropertyServer.SpecificationBuilders;
+
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class PropertySpecificationBuilder extends SpecificationBuilder<Property> {
+
+    private static final Map<String, Class<? extends Property>> SUBTYPE_FIELDS = Map.of(
+            "minPrice", SaleProperty.class,
+            "maxPrice", SaleProperty.class,
+            "minMonthlyRent", RentalProperty.class,
+            "maxMonthlyRent", RentalProperty.class);
+
+    private final RentalPropertySpecificationBuilder rentalFilters = new RentalPropertySpecificationBuilder();
+    private final SalePropertySpecificationBuilder saleFilters = new SalePropertySpecificationBuilder();
+
+    public static Optional<Map<String, String>> forSubtype(Map<String, String> searchParams,
+            Class<? extends Property> subtype) {
+        Map<String, String> filters = new HashMap<>();
+        boolean ownFields = false;
+        boolean otherFields = false;
+        for (Map.Entry<String, String> param : searchParams.entrySet()) {
+            Class<? extends Property> fieldType = SUBTYPE_FIELDS.get(param.getKey());
+            if (fieldType == null || fieldType == subtype)
+                filters.put(param.getKey(), param.getValue());
+            ownFields |= fieldType == subtype;
+            otherFields |= fieldType != null && fieldType != subtype;
+        }
+        return otherFields && !ownFields ? Optional.empty() : Optional.of(filters);
+    }
+
+    @Override
+    protected FilterPredicate<Property> getFilter(String field) {
+        Class<? extends Property> subtype = SUBTYPE_FIELDS.get(field);
+        if (subtype == RentalProperty.class)
+            return treated(RentalProperty.class, rentalFilters.getFilter(field));
+        if (subtype == SaleProperty.class)
+            return treated(SaleProperty.class, saleFilters.getFilter(field));
+        return super.getFilter(field);
+    }
+
+    @Override
+    protected FilterPredicate<Property> getScope(List<String> fields) {
+        Set<Class<? extends Property>> subtypes = fields.stream().map(SUBTYPE_FIELDS::get).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (subtypes.size() != 1)
+            return null;
+        Class<? extends Property> subtype = subtypes.iterator().next();
+        return (root, criteriaBuilder, value) -> criteriaBuilder.equal(root.type(), subtype);
+    }
+
+    private static <S extends Property> FilterPredicate<Property> treated(Class<S> subtype, FilterPredicate<S> filter) {
+        return (root, criteriaBuilder, value) -> criteriaBuilder.or(
+                criteriaBuilder.notEqual(root.type(), subtype),
+                filter.toPredicate(criteriaBuilder.treat(root, subtype), criteriaBuilder, value));
+    }
+}
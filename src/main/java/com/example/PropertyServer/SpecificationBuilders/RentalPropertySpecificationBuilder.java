@@ -1,21 +1,20 @@
 package com.example.PropertyServer.SpecificationBuilders;
 
 import com.example.PropertyServer.Property.RentalProperty;
-import org.springframework.data.jpa.domain.Specification;
 
 public class RentalPropertySpecificationBuilder extends SpecificationBuilder<RentalProperty> {
 
     @Override
-    protected Specification<RentalProperty> getSpec(String field, String value) {
+    protected FilterPredicate<RentalProperty> getFilter(String field) {
         switch(field) {
             case "minMonthlyRent":
-                return (root, query, criteriaBuilder) -> criteriaBuilder
+                return (root, criteriaBuilder, value) -> criteriaBuilder
                         .greaterThanOrEqualTo(root.get("monthlyRent"), Integer.parseInt(value));
             case "maxMonthlyRent":
-                return ((root, query, criteriaBuilder) -> criteriaBuilder
+                return ((root, criteriaBuilder, value) -> criteriaBuilder
                         .lessThanOrEqualTo(root.get("monthlyRent"), Integer.parseInt(value)));
             default:
-                return super.getSpec(field, value);
+                return super.getFilter(field);
         }
     }
 }
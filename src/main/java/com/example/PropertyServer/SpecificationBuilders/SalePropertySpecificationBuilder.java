@@ -1,21 +1,20 @@
 package com.example.PropertyServer.SpecificationBuilders;
 
 import com.example.PropertyServer.Property.SaleProperty;
-import org.springframework.data.jpa.domain.Specification;
 
 public class SalePropertySpecificationBuilder extends SpecificationBuilder<SaleProperty> {
 
     @Override
-    protected Specification<SaleProperty> getSpec(String field, String value) {
+    protected FilterPredicate<SaleProperty> getFilter(String field) {
         switch (field) {
             case "minPrice":
-                return ((root, query, criteriaBuilder) ->
+                return ((root, criteriaBuilder, value) ->
                         criteriaBuilder.greaterThanOrEqualTo(root.get("price"), Integer.parseInt(value)));
             case "maxPrice":
-                return (root, query, criteriaBuilder) ->
+                return (root, criteriaBuilder, value) ->
                         criteriaBuilder.lessThanOrEqualTo(root.get("price"), Integer.parseInt(value));
             default:
-                return super.getSpec(field, value);
+                return super.getFilter(field);
         }
     }
 }
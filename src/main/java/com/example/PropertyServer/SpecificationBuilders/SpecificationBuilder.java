@@ -2,58 +2,74 @@ package com.example.PropertyServer.SpecificationBuilders;
 
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.PropertyType;
+import com.example.PropertyServer.Search.PostcodeTrie;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class SpecificationBuilder<T extends Property> {
 
+    private final Map<List<String>, SpecificationPlan<T>> plans = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     public Specification<T> build(Map<String, String> searchParams) {
-        if(searchParams.isEmpty())
-            return (root, query, criteriaBuilder) -> criteriaBuilder.isTrue(criteriaBuilder.literal(true));
-        else {
-            List<Specification<T>> specs;
-
-            specs = searchParams.keySet().stream()
-                    .map(key -> getSpec(key, searchParams.get(key)))
-                    .collect(Collectors.toList());
-
-            Specification<T> finalSpec = specs.get(0);
-            for (Specification<T> nextSpec : specs.subList(1, specs.size())) {
-                finalSpec = finalSpec.and(nextSpec);
-            }
-            return finalSpec;
+        List<String> fields = new ArrayList<>(searchParams.keySet());
+        fields.sort(null);
+        SpecificationPlan<T> plan = plans.get(fields);
+        if (plan == null) {
+            misses.increment();
+            plan = plans.computeIfAbsent(List.copyOf(fields), this::compile);
+        } else {
+            hits.increment();
         }
+        return plan.bind(searchParams);
+    }
+
+    public PlanCacheStats getPlanCacheStats() {
+        return new PlanCacheStats(hits.sum(), misses.sum(), plans.size());
+    }
+
+    private SpecificationPlan<T> compile(List<String> fields) {
+        List<FilterPredicate<T>> filters = new ArrayList<>(fields.size());
+        for (String field : fields)
+            filters.add(getFilter(field));
+        return new SpecificationPlan<>(fields, List.copyOf(filters), getScope(fields));
+    }
 
+    protected FilterPredicate<T> getScope(List<String> fields) {
+        return null;
     }
 
-    protected Specification<T> getSpec(String field, String value) {
-        Specification<T> spec;
+    protected FilterPredicate<T> getFilter(String field) {
+        FilterPredicate<T> filter;
         switch(field) {
             case "city":
-                spec = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("location").get("city"), value);
+                filter = (root, criteriaBuilder, value) -> criteriaBuilder.equal(root.get("location").get("city"), value);
                 break;
             case "postcode":
-                spec =  (root, query, criteriaBuilder) ->
-                        criteriaBuilder.like(root.get("location").get("postCode"), value + "%");
+                filter = (root, criteriaBuilder, value) ->
+                        criteriaBuilder.like(root.get("location").get("postCode"),
+                                PostcodeTrie.normalise(value) + "%");
                 break;
             case "type":
-                spec = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("type"),
+                filter = (root, criteriaBuilder, value) -> criteriaBuilder.equal(root.get("type"),
                         PropertyType.valueOf(value));
                 break;
             case "min":
-                spec = (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("bedrooms"), value);
+                filter = (root, criteriaBuilder, value) -> criteriaBuilder.greaterThanOrEqualTo(root.get("bedrooms"), value);
                 break;
             case "max":
-                spec = (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("bedrooms"), value);
+                filter = (root, criteriaBuilder, value) -> criteriaBuilder.lessThanOrEqualTo(root.get("bedrooms"), value);
                 break;
             default:
                 throw new IllegalArgumentException("Filter on \"" + field + "\" field not supported");
         }
-        return spec;
+        return filter;
     }
 
 
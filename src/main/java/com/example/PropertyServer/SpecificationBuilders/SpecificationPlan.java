@@ -0,0 +1,42 @@
+package com.example.PropertyServer.SpecificationBuilders;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.util.List;
+import java.util.Map;
+
+public class SpecificationPlan<T> {
+
+    private final List<String> fields;
+    private final List<FilterPredicate<T>> filters;
+    private final FilterPredicate<T> scope;
+
+    public SpecificationPlan(List<String> fields, List<FilterPredicate<T>> filters) {
+        this(fields, filters, null);
+    }
+
+    public SpecificationPlan(List<String> fields, List<FilterPredicate<T>> filters, FilterPredicate<T> scope) {
+        this.fields = fields;
+        this.filters = filters;
+        this.scope = scope;
+    }
+
+    public Specification<T> bind(Map<String, String> searchParams) {
+        String[] values = new String[fields.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = searchParams.get(fields.get(i));
+        return (root, query, criteriaBuilder) -> {
+            Predicate[] predicates = new Predicate[scope == null ? values.length : values.length + 1];
+            for (int i = 0; i < values.length; i++)
+                predicates[i] = filters.get(i).toPredicate(root, criteriaBuilder, values[i]);
+            if (scope != null)
+                predicates[values.length] = scope.toPredicate(root, criteriaBuilder, null);
+            return criteriaBuilder.and(predicates);
+        };
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+}
@@ -1,24 +1,28 @@
 package com.example.PropertyServer.IntergrationTests;
 
+import com.example.PropertyServer.Agent.Agent;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
-import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
+import com.example.PropertyServer.Repositories.AgentRepository;
 import com.example.PropertyServer.Services.AgentService;
 import com.example.PropertyServer.Services.PropertyService;
-import com.example.PropertyServer.Services.S3Service;
-import com.example.PropertyServer.SpecificationBuilders.RentalPropertySpecificationBuilder;
-import com.example.PropertyServer.SpecificationBuilders.SalePropertySpecificationBuilder;
-import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
+import com.example.PropertyServer.TestUtils.MockedServiceCollaborators;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.TestConfiguration;
-import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 
+import static com.example.PropertyServer.Builders.BuilderDirector.initAgent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
+@Import(MockedServiceCollaborators.class)
 public class AgentServiceIntegrationTests {
 
     @TestConfiguration
@@ -35,20 +39,32 @@ public class AgentServiceIntegrationTests {
     @Autowired
     AgentService agentService;
 
-    @MockBean
-    S3Service s3Service;
-
     @Autowired
     PropertyService propertyService;
 
-    @MockBean
-    SpecificationBuilder<Property> specificationBuilder;
+    @Autowired
+    AgentRepository agentRepository;
 
-    @MockBean
-    RentalPropertySpecificationBuilder rentalPropertySpecificationBuilder;
+    @Autowired
+    TestEntityManager testEntityManager;
 
-    @MockBean
-    SalePropertySpecificationBuilder salePropertySpecificationBuilder;
+    @Test
+    public void agentWithReservedIdIsInsertedWithoutASelect() {
+        Statistics statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Agent agent = initAgent().build();
+        agent.setId(1000);
+
+        agentRepository.save(agent);
+        testEntityManager.flush();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        testEntityManager.clear();
+        assertEquals(agent.getName(), agentRepository.findById(1000).orElseThrow().getName());
+    }
 
     @Test
     public void getAgentThrowsAgentNotFoundException() {
@@ -0,0 +1,71 @@
+package com.example.PropertyServer.IntergrationTests;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.example.PropertyServer.Services.ChunkedUploader;
+import com.example.PropertyServer.Services.S3Service;
+import com.example.PropertyServer.TestUtils.FakeS3Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares a single put with a chunked upload against an S3 stand-in that caps every connection at
+ * {@link #BYTES_PER_SECOND}. Timings depend on the machine, so this is excluded from the test task and run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class ChunkedUploadBenchmark {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final int OBJECT_SIZE = 4 * PART_SIZE + 1024;
+    private static final int BYTES_PER_SECOND = 10 * 1024 * 1024;
+
+    private FakeS3Server server;
+    private ChunkedUploader chunkedUploader;
+    private S3Service s3Service;
+    private byte[] content;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new FakeS3Server(BYTES_PER_SECOND);
+        AmazonS3 s3 = server.client();
+        chunkedUploader = new ChunkedUploader(8, PART_SIZE, 4, 3, 10);
+        ReflectionTestUtils.setField(chunkedUploader, "s3", s3);
+        s3Service = new S3Service(FakeS3Server.BUCKET);
+        ReflectionTestUtils.setField(s3Service, "s3", s3);
+        ReflectionTestUtils.setField(s3Service, "chunkedUploader", chunkedUploader);
+
+        content = new byte[OBJECT_SIZE];
+        new Random(42).nextBytes(content);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        chunkedUploader.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void singlePutAgainstChunkedUpload() throws IOException {
+        // Chunked goes first so that it, not the single put, pays for warming up the client.
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", (long) PART_SIZE);
+        long chunked = time("chunked");
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", Long.MAX_VALUE);
+        long single = time("single");
+
+        System.out.printf("%d MB object at %d MB/s per connection: single put %d ms, chunked %d ms%n",
+                OBJECT_SIZE >> 20, BYTES_PER_SECOND >> 20, single, chunked);
+    }
+
+    private long time(String key) throws IOException {
+        long start = System.nanoTime();
+        s3Service.save(new MockMultipartFile("images", "drone.jpg", "image/jpeg", content), key);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
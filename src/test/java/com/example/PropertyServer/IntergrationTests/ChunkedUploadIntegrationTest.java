@@ -0,0 +1,100 @@
+package com.example.PropertyServer.IntergrationTests;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.example.PropertyServer.Services.ChunkedUploader;
+import com.example.PropertyServer.Services.S3Service;
+import com.example.PropertyServer.TestUtils.FakeS3Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs S3Service against an in-process S3 stand-in to check how large images are split into parts, retried and
+ * aborted. Throughput is measured separately by {@link ChunkedUploadBenchmark}.
+ */
+public class ChunkedUploadIntegrationTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final int OBJECT_SIZE = 4 * PART_SIZE + 1024;
+    private static final int PART_ATTEMPTS = 3;
+
+    private FakeS3Server server;
+    private ChunkedUploader chunkedUploader;
+    private S3Service s3Service;
+    private byte[] content;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new FakeS3Server(0);
+        AmazonS3 s3 = server.client();
+        chunkedUploader = new ChunkedUploader(8, PART_SIZE, 4, PART_ATTEMPTS, 10);
+        ReflectionTestUtils.setField(chunkedUploader, "s3", s3);
+        s3Service = new S3Service(FakeS3Server.BUCKET);
+        ReflectionTestUtils.setField(s3Service, "s3", s3);
+        ReflectionTestUtils.setField(s3Service, "chunkedUploader", chunkedUploader);
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", (long) PART_SIZE);
+
+        content = new byte[OBJECT_SIZE];
+        new Random(42).nextBytes(content);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        chunkedUploader.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void largeImageIsAssembledFromPartsInOrder() throws IOException {
+        s3Service.save(image(), "large");
+
+        assertThat(server.objects.get("large")).isEqualTo(content);
+        assertThat(server.partAttempts).hasSize(5);
+        assertThat(server.completedParts).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void imageBelowTheThresholdIsSentInOnePut() throws IOException {
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", Long.MAX_VALUE);
+
+        s3Service.save(image(), "single");
+
+        assertThat(server.objects.get("single")).isEqualTo(content);
+        assertThat(server.partAttempts).isEmpty();
+    }
+
+    @Test
+    public void failedPartIsTheOnlyOneSentAgain() throws IOException {
+        server.failPart(2, 1);
+
+        s3Service.save(image(), "retried");
+
+        assertThat(server.objects.get("retried")).isEqualTo(content);
+        server.partAttempts.forEach((part, attempts) -> assertThat(attempts.get()).isEqualTo(part == 2 ? 2 : 1));
+    }
+
+    @Test
+    public void partThatRunsOutOfAttemptsAbortsTheUpload() {
+        server.failPart(2, PART_ATTEMPTS);
+
+        assertThrows(AmazonServiceException.class, () -> s3Service.save(image(), "aborted"));
+
+        assertThat(server.partAttempts.get(2)).hasValue(PART_ATTEMPTS);
+        assertThat(server.aborted).containsExactly("upload-aborted");
+        assertThat(server.partsAfterAbort).hasValue(0);
+        assertThat(server.objects).doesNotContainKey("aborted");
+    }
+
+    private MockMultipartFile image() {
+        return new MockMultipartFile("images", "drone.jpg", "image/jpeg", content);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.PropertyServer.IntergrationTests;
 
 import com.example.PropertyServer.Agent.Agent;
 import com.example.PropertyServer.Location.Location;
+import com.example.PropertyServer.Pagination.CursorPage;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.PropertyType;
 import com.example.PropertyServer.Property.RentalProperty;
@@ -23,30 +24,40 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import javax.servlet.ServletContext;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.example.PropertyServer.Builders.BuilderDirector.*;
 import static com.example.PropertyServer.TestUtils.TestUtils.*;
 import static com.jayway.jsonpath.matchers.JsonPathMatchers.hasNoJsonPath;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.matchesPattern;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -101,11 +112,327 @@ public class PropertyControllerIntegrationTests {
         SaleProperty   saleProperty = salePropertyRepository.save(initSaleProperty(agent).build());
 
         mockMvc.perform(get("/properties"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(content().json(mapper.writeValueAsString(
+                        new CursorPage<>(Arrays.asList(rentalProperty, saleProperty), null))));
+    }
+
+    @Test
+    public void getAllPropertiesUnpaged() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty rentalProperty = rentalPropertyRepository.save(initRentalProperty(agent).build());
+        SaleProperty   saleProperty = salePropertyRepository.save(initSaleProperty(agent).build());
+
+        mockMvc.perform(get("/properties").param("unpaged", "true"))
                 .andExpect(status().isOk())
                 .andDo(print())
                 .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(rentalProperty, saleProperty))));
     }
 
+    @Test
+    public void getPropertiesPagesWithCursor() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty first = rentalPropertyRepository.save(initRentalProperty(agent).build());
+        SaleProperty second = salePropertyRepository.save(initSaleProperty(agent).build());
+        RentalProperty third = rentalPropertyRepository.save(initRentalProperty(agent).build());
+
+        String response = mockMvc.perform(get("/properties").param("limit", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(2)))
+                .andExpect(jsonPath("$.content[0].id", is(first.getId())))
+                .andExpect(jsonPath("$.content[1].id", is(second.getId())))
+                .andExpect(jsonPath("$.next", is(notNullValue())))
+                .andReturn().getResponse().getContentAsString();
+
+        String next = mapper.readTree(response).get("next").asText();
+
+        mockMvc.perform(get("/properties").param("limit", "2").param("after", next))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].id", is(third.getId())))
+                .andExpect(jsonPath("$.next", is(nullValue())));
+    }
+
+    @Test
+    public void streamPropertiesAsNdjson() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty rentalProperty = rentalPropertyRepository.save(initRentalProperty(agent).build());
+        SaleProperty saleProperty = salePropertyRepository.save(initSaleProperty(agent).build());
+
+        MvcResult result = mockMvc.perform(get("/properties").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(mapper.readTree(lines[0]).get("id").asInt(), is(rentalProperty.getId()));
+        assertThat(mapper.readTree(lines[1]).get("id").asInt(), is(saleProperty.getId()));
+    }
+
+    @Test
+    public void getPostcodeCountsByPrefix() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        rentalPropertyRepository.save(initRentalProperty(agent).build());
+        salePropertyRepository.save(initSaleProperty(agent).build());
+        rentalPropertyRepository.save(initRentalProperty(agent)
+                .withLocation(initLocation().withPostcode("YO1 7HH").build()).build());
+        rentalPropertyRepository.save(initRentalProperty(agent)
+                .withLocation(initLocation().withPostcode("YO17HH").build()).build());
+        rentalPropertyRepository.save(initRentalProperty(agent)
+                .withLocation(initLocation().withPostcode("MC7 8PQ").build()).build());
+
+        mockMvc.perform(get("/postcodes").param("prefix", "yo"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(2)))
+                .andExpect(jsonPath("$.content[0].postcode", is("YO1 7HH")))
+                .andExpect(jsonPath("$.content[0].count", is(2)))
+                .andExpect(jsonPath("$.content[1].postcode", is("YO7 8NY")))
+                .andExpect(jsonPath("$.content[1].count", is(2)));
+    }
+
+    @Test
+    public void getFacetCountsForFilters() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        rentalPropertyRepository.save(initRentalProperty(agent).build());
+        salePropertyRepository.save(initSaleProperty(agent).build());
+        rentalPropertyRepository.save(initRentalProperty(agent).withType(PropertyType.HOUSE_TERRACED)
+                .withMonthlyRent(800).withLocation(initLocation().withCity("Leeds").build()).build());
+
+        mockMvc.perform(get("/properties/facets").param("city", "York"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.type.FLAT", is(2)))
+                .andExpect(jsonPath("$.type.HOUSE_TERRACED").doesNotExist())
+                .andExpect(jsonPath("$.city.York", is(2)))
+                .andExpect(jsonPath("$.bedrooms.3", is(2)))
+                .andExpect(jsonPath("$.price['300000-500000']", is(1)))
+                .andExpect(jsonPath("$.monthlyRent['1500-2000']", is(1)))
+                .andExpect(jsonPath("$.monthlyRent['500-1000']", is(0)));
+    }
+
+    @Test
+    public void facetPricesAreBucketedAtTheirBounds() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        for (int price : new int[]{99999, 100000, 150000, 199999, 1000000, 2500000})
+            salePropertyRepository.save(initSaleProperty(agent).withPrice(price).build());
+
+        mockMvc.perform(get("/properties/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(6)))
+                .andExpect(jsonPath("$.price['0-100000']", is(1)))
+                .andExpect(jsonPath("$.price['100000-200000']", is(3)))
+                .andExpect(jsonPath("$.price['500000-1000000']", is(0)))
+                .andExpect(jsonPath("$.price['1000000+']", is(2)));
+    }
+
+    @Test
+    public void countAndExistsForFilters() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        rentalPropertyRepository.save(initRentalProperty(agent).build());
+        rentalPropertyRepository.save(initRentalProperty(agent).withBedrooms(5).build());
+        salePropertyRepository.save(initSaleProperty(agent).build());
+
+        mockMvc.perform(get("/rentalProperties").param("count", "true").param("min", "2").param("max", "4"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"));
+        mockMvc.perform(head("/properties").param("city", "York"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"));
+        mockMvc.perform(get("/saleProperties").param("exists", "true").param("minPrice", "400000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exists", is(false)));
+    }
+
+    @Test
+    public void getPropertiesProjectsRequestedFields() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty rental = rentalPropertyRepository.save(initRentalProperty(agent).build());
+        SaleProperty sale = salePropertyRepository.save(initSaleProperty(agent).withImages(List.of()).build());
+
+        mockMvc.perform(get("/properties").param("fields", "city,price,images").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].id", is(rental.getId())))
+                .andExpect(jsonPath("$.content[0].city", is("York")))
+                .andExpect(jsonPath("$.content[0].price", nullValue()))
+                .andExpect(jsonPath("$.content[0].images", contains(rental.getImages().stream()
+                        .map(URL::toString).toArray(String[]::new))))
+                .andExpect(jsonPath("$.content[0].bedrooms").doesNotExist())
+                .andExpect(jsonPath("$.next", notNullValue()));
+
+        mockMvc.perform(get("/saleProperties").param("fields", "type,price").param("min", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(sale.getId())))
+                .andExpect(jsonPath("$.content[0].type", is("FLAT")))
+                .andExpect(jsonPath("$.content[0].price", is(300000)));
+
+        mockMvc.perform(get("/rentalProperties").param("fields", "price"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getPropertiesWithPriceOrRentFilters() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty cheapRental = rentalPropertyRepository.save(initRentalProperty(agent).withMonthlyRent(1200)
+                .build());
+        rentalPropertyRepository.save(initRentalProperty(agent).withMonthlyRent(1800).build());
+        SaleProperty cheapSale = salePropertyRepository.save(initSaleProperty(agent).withPrice(200000).build());
+        salePropertyRepository.save(initSaleProperty(agent).withPrice(400000).build());
+
+        String body = mockMvc.perform(get("/properties").param("maxMonthlyRent", "1500").param("maxPrice", "250000")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(cheapRental.getId())))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/properties").param("maxMonthlyRent", "1500").param("maxPrice", "250000")
+                .param("after", mapper.readTree(body).get("next").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].id", is(cheapSale.getId())));
+        mockMvc.perform(get("/properties").param("maxPrice", "250000").param("fields", "price,monthlyRent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].price", is(200000)));
+        mockMvc.perform(get("/properties").param("count", "true").param("minMonthlyRent", "1000"))
+                .andExpect(header().string("X-Total-Count", "2"));
+        mockMvc.perform(get("/properties/facets").param("maxPrice", "250000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(1)));
+    }
+
+    @Test
+    public void getSalePropertiesSortedByPriceWithCursor() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        SaleProperty cheap = salePropertyRepository.save(initSaleProperty(agent).withPrice(100000).build());
+        SaleProperty dear = salePropertyRepository.save(initSaleProperty(agent).withPrice(500000).build());
+        SaleProperty middle = salePropertyRepository.save(initSaleProperty(agent).withPrice(300000).build());
+        SaleProperty tied = salePropertyRepository.save(initSaleProperty(agent).withPrice(300000).build());
+
+        String body = mockMvc.perform(get("/saleProperties").param("sort", "price,desc").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(dear.getId())))
+                .andExpect(jsonPath("$.content[1].id", is(middle.getId())))
+                .andReturn().getResponse().getContentAsString();
+        String next = mapper.readTree(body).get("next").asText();
+
+        mockMvc.perform(get("/saleProperties").param("sort", "price,desc").param("limit", "2").param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(tied.getId())))
+                .andExpect(jsonPath("$.content[1].id", is(cheap.getId())))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        mockMvc.perform(get("/rentalProperties").param("sort", "price"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getPropertiesAndAgentsByIdsKeepsOrderAndReportsMissing() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty rental = rentalPropertyRepository.save(initRentalProperty(agent).build());
+        SaleProperty sale = salePropertyRepository.save(initSaleProperty(agent).build());
+
+        mockMvc.perform(get("/properties").param("ids", sale.getId() + ",999," + rental.getId() + "," + sale.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(2)))
+                .andExpect(jsonPath("$.content[0].id", is(sale.getId())))
+                .andExpect(jsonPath("$.content[1].id", is(rental.getId())))
+                .andExpect(jsonPath("$.missing", contains(999)));
+        mockMvc.perform(get("/agents").param("ids", "998," + agent.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(agent.getId())))
+                .andExpect(jsonPath("$.missing", contains(998)));
+        mockMvc.perform(get("/properties").param("ids", "1,x"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username="admin", roles="ADMIN")
+    public void importPropertiesReportsRejectedRows() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        String ndjson = "{\"kind\":\"rental\",\"type\":\"FLAT\",\"bedrooms\":2,\"monthlyRent\":900,"
+                + "\"location\":{\"number\":1,\"street\":\"High Street\",\"city\":\"Leeds\",\"postCode\":\"LS1 1AA\"}}\n"
+                + "\n"
+                + "{\"kind\":\"sale\",\"type\":\"FLAT\",\"bedrooms\":0,\"price\":100000,"
+                + "\"location\":{\"number\":2,\"street\":\"High Street\",\"city\":\"Leeds\",\"postCode\":\"nope\"}}\n"
+                + "not json\n";
+
+        mockMvc.perform(post("/agents/" + agent.getId() + "/properties/import")
+                .contentType(MediaType.APPLICATION_NDJSON).content(ndjson).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows", is(3)))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)))
+                .andExpect(jsonPath("$.errors[0].messages", contains("nope is not a valid postcode",
+                        "property must have at least one bedroom")))
+                .andExpect(jsonPath("$.errors[1].line", is(4)));
+
+        String csv = "type,bedrooms,price,number,street,city,county,postCode\n"
+                + "HOUSE_DETACHED,4,450000,10,\"Park Lane, East\",York,,YO1 7HH\n"
+                + "HOUSE_TERRACED,3,250000,11,Park Lane,York\n";
+        mockMvc.perform(post("/agents/" + agent.getId() + "/properties/import").param("kind", "sale")
+                .contentType("text/csv").content(csv).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)));
+
+        assertThat(rentalPropertyRepository.count(), is(1L));
+        assertThat(salePropertyRepository.findAll().get(0).getLocation().getStreet(), is("Park Lane, East"));
+        mockMvc.perform(post("/agents/999/properties/import").contentType("text/csv").content(csv).with(csrf()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username="admin", roles="ADMIN")
+    public void importRejectsOnlyTheRowsTheDatabaseRefuses() throws Exception {
+        Agent agent = agentRepository.save(initAgent().build());
+        String csv = "type,bedrooms,price,number,street,city,county,postCode\n"
+                + "FLAT,2,150000,1,High Street,York,,YO1 7HH\n"
+                + "FLAT,2,150000,2,High Street,York," + "x".repeat(300) + ",YO1 7HH\n"
+                + "FLAT,2,150000,3,High Street,York,,YO1 7HH\n";
+
+        mockMvc.perform(post("/agents/" + agent.getId() + "/properties/import").param("kind", "sale")
+                .contentType("text/csv").content(csv).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)));
+
+        assertThat(salePropertyRepository.findAll().stream().map(property -> property.getLocation().getNumber())
+                .sorted().collect(Collectors.toList()), contains(1, 3));
+    }
+
+    private void awaitImages(int id) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String status = mockMvc.perform(get("/properties/" + id + "/images/status"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String state = mapper.readTree(status).get("state").asText();
+            if (state.equals("COMPLETE"))
+                return;
+            assertThat(state, not(is("FAILED")));
+            Thread.sleep(100);
+        }
+        throw new AssertionError("images for property " + id + " were not uploaded");
+    }
+
+    @Test
+    public void invalidCursorReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/properties").param("after", "not-a-cursor"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getOnlyRentals() throws Exception {
         Agent agent = agentRepository.save(initAgent().build());
@@ -116,7 +443,8 @@ public class PropertyControllerIntegrationTests {
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON.toString()))
-                .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(rentalProperty))));
+                .andExpect(content().json(mapper.writeValueAsString(
+                        new CursorPage<>(Arrays.asList(rentalProperty), null))));
     }
 
     @Test
@@ -129,7 +457,8 @@ public class PropertyControllerIntegrationTests {
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON.toString()))
-                .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(saleProperty))));
+                .andExpect(content().json(mapper.writeValueAsString(
+                        new CursorPage<>(Arrays.asList(saleProperty), null))));
     }
 
     @Test
@@ -179,23 +508,29 @@ public class PropertyControllerIntegrationTests {
         RentalProperty rentalProperty = initRentalProperty(null).withImages(Collections.emptyList()).build();
         List<MockMultipartFile> images = createImageMultipart(3);
 
-        mockMvc.perform(multipart("/agents/" + agent.getId() + "/properties/rentals")
+        String body = mockMvc.perform(multipart("/agents/" + agent.getId() + "/properties/rentals")
                 .file(buildPropertyMultiPart(rentalProperty))
                 .file(images.get(0)).file(images.get(1)).file(images.get(2))
                 .with(csrf()))
                 .andDo(print())
-                .andExpect(status().isCreated())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, matchesPattern(".*/properties/\\d+/images/status")))
                 .andExpect(jsonPath("$.id", is(notNullValue())))
                 .andExpect(jsonPath("$.location", is(rentalProperty.getLocation()), Location.class))
                 .andExpect(jsonPath("$.bedrooms", is(rentalProperty.getBedrooms())))
+                .andExpect(jsonPath("$", hasNoJsonPath("$.agent")))
+                .andExpect(jsonPath("$.monthlyRent", is(rentalProperty.getMonthlyRent())))
+                .andReturn().getResponse().getContentAsString();
+        int id = mapper.readTree(body).get("id").asInt();
+
+        awaitImages(id);
+        mockMvc.perform(get("/properties/" + id))
                 .andExpect(jsonPath("$.images[0]",
-                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_2_image_0")))
+                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")))
                 .andExpect(jsonPath("$.images[1]",
-                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_2_image_1")))
+                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")))
                 .andExpect(jsonPath("$.images[2]",
-                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_2_image_2")))
-                .andExpect(jsonPath("$", hasNoJsonPath("$.agent")))
-                .andExpect(jsonPath("$.monthlyRent", is(rentalProperty.getMonthlyRent())));
+                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")));
     }
 
     @Test
@@ -205,22 +540,27 @@ public class PropertyControllerIntegrationTests {
         SaleProperty saleProperty = initSaleProperty(null).withImages(Collections.emptyList()).build();
         List<MockMultipartFile> images = createImageMultipart(3);
 
-        mockMvc.perform(multipart("/agents/" + agent.getId() + "/properties/sales")
+        String body = mockMvc.perform(multipart("/agents/" + agent.getId() + "/properties/sales")
                 .file(buildPropertyMultiPart(saleProperty))
                 .file(images.get(0)).file(images.get(1)).file(images.get(2))
                 .with(csrf()))
-                .andExpect(status().isCreated())
+                .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.id", is(notNullValue())))
                 .andExpect(jsonPath("$.location", is(saleProperty.getLocation()), Location.class))
                 .andExpect(jsonPath("$.bedrooms", is(saleProperty.getBedrooms())))
+                .andExpect(jsonPath("$", hasNoJsonPath("$.agent")))
+                .andExpect(jsonPath("$.price", is(saleProperty.getPrice())))
+                .andReturn().getResponse().getContentAsString();
+        int id = mapper.readTree(body).get("id").asInt();
+
+        awaitImages(id);
+        mockMvc.perform(get("/properties/" + id))
                 .andExpect(jsonPath("$.images[0]",
-                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d_image_0")))
+                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")))
                 .andExpect(jsonPath("$.images[1]",
-                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d_image_1")))
+                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")))
                 .andExpect(jsonPath("$.images[2]",
-                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d_image_2")))
-                .andExpect(jsonPath("$", hasNoJsonPath("$.agent")))
-                .andExpect(jsonPath("$.price", is(saleProperty.getPrice())));
+                        matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")));
 
     }
 
@@ -241,9 +581,9 @@ public class PropertyControllerIntegrationTests {
                 .file(images.get(0)).file(images.get(1)).file(images.get(2))
                 .with(csrf()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.images[0]", matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d_image_0")))
-                .andExpect(jsonPath("$.images[1]", matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d_image_1")))
-                .andExpect(jsonPath("$.images[2]", matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d_image_2")));
+                .andExpect(jsonPath("$.images[0]", matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")))
+                .andExpect(jsonPath("$.images[1]", matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")))
+                .andExpect(jsonPath("$.images[2]", matchesPattern(AMAZON_S3_BUCKET_URL_REGEX + "property_\\d+_image_[0-9a-f-]{36}")));
     }
 
     @Test
@@ -310,8 +650,9 @@ public class PropertyControllerIntegrationTests {
         mockMvc.perform(get("/properties").queryParams(params))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()", is(1)))
-                .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(targetProperty))));
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(content().json(mapper.writeValueAsString(
+                        new CursorPage<>(Arrays.asList(targetProperty), null))));
     }
 
     @Test
@@ -342,8 +683,9 @@ public class PropertyControllerIntegrationTests {
         mockMvc.perform(get("/rentalProperties").queryParams(params))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()", is(1)))
-                .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(targetProperty))));
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(content().json(mapper.writeValueAsString(
+                        new CursorPage<>(Arrays.asList(targetProperty), null))));
     }
 
     @Test
@@ -372,8 +714,9 @@ public class PropertyControllerIntegrationTests {
         mockMvc.perform(get("/saleProperties").queryParams(params))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()", is(1)))
-                .andExpect(content().json(mapper.writeValueAsString(Arrays.asList(targetProperty))));
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(content().json(mapper.writeValueAsString(
+                        new CursorPage<>(Arrays.asList(targetProperty), null))));
     }
 
     @Test
@@ -455,7 +798,7 @@ public class PropertyControllerIntegrationTests {
                 .with(httpBasic(USERNAME, PASSWORD))
                 .with(csrf()))
                 .andDo(print())
-                .andExpect(status().isCreated());
+                .andExpect(status().isAccepted());
     }
 
     @Test
@@ -468,7 +811,7 @@ public class PropertyControllerIntegrationTests {
                 .with(httpBasic(USERNAME, PASSWORD))
                 .with(csrf()))
                 .andDo(print())
-                .andExpect(status().isCreated());
+                .andExpect(status().isAccepted());
     }
 
     @Test
@@ -1,27 +1,36 @@
 package com.example.PropertyServer.IntergrationTests;
 
+import com.example.PropertyServer.Agent.Agent;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.RentalProperty;
 import com.example.PropertyServer.Property.SaleProperty;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
 import com.example.PropertyServer.Services.PropertyService;
-import com.example.PropertyServer.Services.S3Service;
-import com.example.PropertyServer.SpecificationBuilders.RentalPropertySpecificationBuilder;
-import com.example.PropertyServer.SpecificationBuilders.SalePropertySpecificationBuilder;
-import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
+import com.example.PropertyServer.TestUtils.MockedServiceCollaborators;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.TestConfiguration;
-import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.initAgent;
+import static com.example.PropertyServer.Builders.BuilderDirector.initRentalProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 @DataJpaTest
+@Import(MockedServiceCollaborators.class)
 public class PropertyServiceIntegrationTests {
 
     @TestConfiguration
@@ -36,18 +45,6 @@ public class PropertyServiceIntegrationTests {
     @Autowired
     PropertyService propertyService;
 
-    @MockBean
-    RentalPropertySpecificationBuilder rentalPropertySpecificationBuilder;
-
-    @MockBean
-    SpecificationBuilder<Property> specificationBuilder;
-
-    @MockBean
-    SalePropertySpecificationBuilder salePropertySpecificationBuilder;
-
-    @MockBean
-    S3Service s3Service;
-
     @Test
     public void createSalePropertyThrowsAgentNotFoundException() {
         int AGENT_ID = 1;
@@ -70,4 +67,22 @@ public class PropertyServiceIntegrationTests {
                 new MultipartFile[]{mock(MultipartFile.class)}));
     }
 
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Test
+    public void imageVariantsLargerThanAVarcharRoundTrip() throws MalformedURLException {
+        Agent agent = testEntityManager.persist(initAgent().build());
+        RentalProperty property = initRentalProperty(agent).withImages(new ArrayList<>()).build();
+        for (int i = 0; i < 100; i++) {
+            String image = "https://propertyserverbucket.s3.eu-west-2.amazonaws.com/property_1_image_" + UUID.randomUUID();
+            property.addImage(new URL(image), Map.of(300, new URL(image + "_w300"), 800, new URL(image + "_w800")));
+        }
+        int id = testEntityManager.persistAndFlush(property).getId();
+        testEntityManager.clear();
+
+        Property reloaded = testEntityManager.find(Property.class, id);
+
+        assertEquals(property.getImageVariants(), reloaded.getImageVariants());
+    }
 }
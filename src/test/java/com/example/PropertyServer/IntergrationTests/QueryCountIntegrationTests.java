@@ -0,0 +1,100 @@
+package com.example.PropertyServer.IntergrationTests;
+
+import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.AgentRepository;
+import com.example.PropertyServer.Repositories.RentalPropertyRepository;
+import com.example.PropertyServer.Repositories.SalePropertyRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "search.result-cache.max-weight=0")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class QueryCountIntegrationTests {
+
+    private static final int PROPERTIES = 20;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    AgentRepository agentRepository;
+
+    @Autowired
+    RentalPropertyRepository rentalPropertyRepository;
+
+    @Autowired
+    SalePropertyRepository salePropertyRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Agent agent;
+    private Property property;
+
+    @BeforeEach
+    public void setUp() {
+        agent = agentRepository.save(initAgent().build());
+        for (int i = 0; i < PROPERTIES / 2; i++) {
+            agent.addProperty(rentalPropertyRepository.save(initRentalProperty(agent).build()));
+            property = salePropertyRepository.save(initSaleProperty(agent).build());
+            agent.addProperty(property);
+        }
+        agent = agentRepository.save(agent);
+    }
+
+    @Test
+    public void searchEndpointsUseFixedNumberOfStatements() throws Exception {
+        assertThat(statements(get("/properties").param("unpaged", "true"), PROPERTIES), lessThanOrEqualTo(2L));
+        assertThat(statements(get("/properties").param("limit", "50"), PROPERTIES), lessThanOrEqualTo(2L));
+        assertThat(statements(get("/rentalProperties").param("unpaged", "true"), PROPERTIES / 2),
+                lessThanOrEqualTo(2L));
+        assertThat(statements(get("/saleProperties").param("city", "York"), PROPERTIES / 2),
+                lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    public void agentEndpointsUseFixedNumberOfStatements() throws Exception {
+        assertThat(statements(get("/agents/" + agent.getId() + "/properties"), PROPERTIES), lessThanOrEqualTo(3L));
+        Statistics statistics = statistics();
+        mockMvc.perform(get("/properties/" + property.getId() + "/agent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(agent.getName())));
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(2L));
+    }
+
+    private long statements(RequestBuilder request, int expectedRows) throws Exception {
+        Statistics statistics = statistics();
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.split("https://url1", -1).length - 1, is(expectedRows));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+}
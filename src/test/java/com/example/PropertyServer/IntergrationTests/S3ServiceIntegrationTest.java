@@ -2,6 +2,7 @@ package com.example.PropertyServer.IntergrationTests;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.example.PropertyServer.Services.ChunkedUploader;
 import com.example.PropertyServer.Services.S3Service;
 import com.example.PropertyServer.TestUtils.TestUtils;
 import org.junit.jupiter.api.Test;
@@ -35,6 +36,9 @@ public class S3ServiceIntegrationTest {
         @Bean
         public S3Service getS3Service() {return new S3Service(bucketname);}
 
+        @Bean
+        public ChunkedUploader getChunkedUploader() {return new ChunkedUploader(16, 8388608, 4, 3, 200);}
+
     }
 
     @Autowired
@@ -17,11 +17,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.example.PropertyServer.Builders.BuilderDirector.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -32,6 +34,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @ImportAutoConfiguration(BeansConfig.class)
 public class SpecificationBuilderIntegrationTests {
 
+    @Autowired
+    TestEntityManager testEntityManager;
+
     @Autowired
     PropertyBaseRepository<Property> propertyBaseRepository;
 
@@ -114,6 +119,19 @@ public class SpecificationBuilderIntegrationTests {
         assertThat(list.get(0).getLocation().getPostCode(), startsWith(params.get("postcode")));
     }
 
+    @Test
+    public void findByPostCodeIgnoresCaseAndSpacing() {
+        Agent agent = agentRepository.save(initAgent().build());
+        salePropertyRepository.save(initSaleProperty(agent).withLocation(
+                initLocation().withPostcode("YO17HH").build()).build());
+        rentalPropertyRepository.save(initRentalProperty(agent).withLocation(
+                initLocation().withPostcode("YO10 5DD").build()).build());
+
+        List<Property> list = propertyBaseRepository.findAll(specificationBuilder.build(Map.of("postcode", "yo1 7")));
+        assertThat(list.size(), equalTo(1));
+        assertThat(list.get(0).getLocation().getPostCode(), equalTo("YO1 7HH"));
+    }
+
     @Test
     public void findByType() {
         Agent agent = agentRepository.save(initAgent().build());
@@ -259,6 +277,38 @@ public class SpecificationBuilderIntegrationTests {
                 .and(lessThanOrEqualTo(Integer.parseInt(params.get("maxPrice"))))));
     }
 
+    @Test
+    public void findPropertiesWithPriceOrRentFiltersInOneQuery() {
+        Agent agent = agentRepository.save(initAgent().build());
+        RentalProperty cheapRental = rentalPropertyRepository.save(initRentalProperty(agent).withMonthlyRent(1200).build());
+        rentalPropertyRepository.save(initRentalProperty(agent).withMonthlyRent(1800).build());
+        SaleProperty cheapSale = salePropertyRepository.save(initSaleProperty(agent).withPrice(200000).build());
+        salePropertyRepository.save(initSaleProperty(agent).withPrice(400000).build());
+        salePropertyRepository.save(initSaleProperty(agent).withPrice(100000).withLocation(
+                initLocation().withCity("Leeds").build()).build());
+
+        List<Property> both = propertyBaseRepository.findAll(specificationBuilder.build(
+                Map.of("city", "York", "maxMonthlyRent", "1500", "maxPrice", "250000")));
+        List<Property> salesOnly = propertyBaseRepository.findAll(specificationBuilder.build(
+                Map.of("city", "York", "maxPrice", "250000")));
+
+        assertThat(both.stream().map(Property::getId).collect(Collectors.toList()),
+                containsInAnyOrder(cheapRental.getId(), cheapSale.getId()));
+        assertThat(salesOnly.stream().map(Property::getId).collect(Collectors.toList()),
+                contains(cheapSale.getId()));
+    }
+
+    @Test
+    public void propertyTableHasCompositeSearchIndexes() {
+        List<Object> indexes = testEntityManager.getEntityManager().createNativeQuery(
+                "select distinct lower(index_name) from information_schema.indexes where table_name = 'PROPERTY'")
+                .getResultList();
+
+        assertThat(indexes, hasItems((Object) "idx_property_dtype_price", "idx_property_dtype_monthly_rent",
+                "idx_property_bedrooms", "idx_property_type_bedrooms", "idx_property_city_type_bedrooms",
+                "idx_property_post_code"));
+    }
+
     @Test
     public void nonExistentTypeThrows_InvalidDataAccessApiUsageException() {
         assertThrows(InvalidDataAccessApiUsageException.class, () -> {
@@ -0,0 +1,72 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentPortfolios;
+import com.example.PropertyServer.Agent.AgentStats;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Repositories.PropertySearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AgentPortfoliosTest {
+
+    private AgentPortfolios portfolios;
+
+    private final Agent agent = initAgent().build();
+    private final Agent otherAgent = initAgent().build();
+
+    @BeforeEach
+    public void setUp() {
+        agent.setId(1);
+        otherAgent.setId(2);
+        PropertySearchRepository repository = mock(PropertySearchRepository.class);
+        when(repository.portfolioRows(eq(RentalProperty.class), anyString()))
+                .thenReturn(List.of(new Object[]{10, 1, 2, 1000}, new Object[]{11, 1, 3, 2000}));
+        when(repository.portfolioRows(eq(SaleProperty.class), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{12, 1, 3, 300000}));
+        portfolios = new AgentPortfolios();
+        ReflectionTestUtils.setField(portfolios, "propertySearchRepository", repository);
+        portfolios.rebuild();
+    }
+
+    @Test
+    public void rebuildAggregatesExistingListings() {
+        AgentStats stats = portfolios.stats(1);
+
+        assertThat(stats.getListings()).isEqualTo(3);
+        assertThat(stats.getAverageMonthlyRent()).isEqualTo(1500.0);
+        assertThat(stats.getAveragePrice()).isEqualTo(300000.0);
+        assertThat(stats.getBedrooms()).containsEntry(2, 1L).containsEntry(3, 2L);
+    }
+
+    @Test
+    public void updateReplacesPreviousContribution() {
+        RentalProperty moved = initRentalProperty(otherAgent).withMonthlyRent(900).withBedrooms(1).build();
+        moved.setId(11);
+        SaleProperty added = initSaleProperty(agent).withPrice(500000).withBedrooms(4).build();
+        added.setId(13);
+
+        portfolios.update(moved);
+        portfolios.update(added);
+
+        AgentStats stats = portfolios.stats(1);
+        assertThat(stats.getRentals()).isEqualTo(1);
+        assertThat(stats.getAverageMonthlyRent()).isEqualTo(1000.0);
+        assertThat(stats.getAveragePrice()).isEqualTo(400000.0);
+        assertThat(stats.getBedrooms()).containsOnlyKeys(2, 3, 4);
+        assertThat(portfolios.stats(2).getAverageMonthlyRent()).isEqualTo(900.0);
+        assertThat(portfolios.stats(3).getListings()).isZero();
+        assertThat(portfolios.stats(3).getAveragePrice()).isNull();
+    }
+}
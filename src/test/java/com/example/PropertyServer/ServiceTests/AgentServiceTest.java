@@ -1,13 +1,16 @@
 package com.example.PropertyServer.ServiceTests;
 
 import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentPortfolios;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.RentalProperty;
 import com.example.PropertyServer.Property.SaleProperty;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
 import com.example.PropertyServer.Repositories.AgentRepository;
+import com.example.PropertyServer.Repositories.IdReservations;
 import com.example.PropertyServer.Services.AgentService;
+import com.example.PropertyServer.Services.ImageResizer;
 import com.example.PropertyServer.Services.PropertyService;
 import com.example.PropertyServer.Services.S3Service;
 import org.junit.jupiter.api.Test;
@@ -49,6 +52,15 @@ public class AgentServiceTest {
     @MockBean
     S3Service s3Service;
 
+    @MockBean
+    AgentPortfolios agentPortfolios;
+
+    @MockBean
+    IdReservations idReservations;
+
+    @MockBean
+    ImageResizer imageResizer;
+
     @Autowired
     AgentService agentService;
 
@@ -117,6 +129,14 @@ public class AgentServiceTest {
         assertThat(returnedAgent, equalTo(agent));
     }
 
+    @Test
+    public void getAgentStatsChecksAgentExists() {
+        int AGENT_ID = 1;
+        when(agentRepository.existsById(AGENT_ID)).thenReturn(false);
+        assertThrows(AgentNotFoundException.class, () -> agentService.getAgentStats(AGENT_ID));
+        verify(agentPortfolios, never()).stats(AGENT_ID);
+    }
+
     @Test
     public void throwsAgentNotFoundError() {
         int AGENT_ID = 1;
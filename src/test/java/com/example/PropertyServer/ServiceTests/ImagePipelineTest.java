@@ -0,0 +1,185 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.amazonaws.AmazonClientException;
+import com.example.PropertyServer.Exceptions.ImageQueueFullException;
+import com.example.PropertyServer.Property.ImageUploadStatus;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Search.SearchResultCache;
+import com.example.PropertyServer.Services.ImagePipeline;
+import com.example.PropertyServer.Services.ImageResizer;
+import com.example.PropertyServer.Services.ParallelUploader;
+import com.example.PropertyServer.Services.S3Service;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.PathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.initRentalProperty;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImagePipelineTest {
+
+    private static final int PROPERTY_ID = 5;
+
+    private ImagePipeline pipeline;
+    private ParallelUploader uploader;
+    private S3Service s3Service;
+    private ImageResizer imageResizer;
+    private RentalProperty property;
+    private PropertyBaseRepository<Property> repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        pipeline = new ImagePipeline(1, 1, 100, 3);
+        uploader = new ParallelUploader(2, 2);
+        s3Service = mock(S3Service.class);
+        repository = mock(PropertyBaseRepository.class);
+        property = initRentalProperty(null).withImages(new ArrayList<>()).build();
+        property.setId(PROPERTY_ID);
+        when(repository.findWithImagesById(PROPERTY_ID)).thenReturn(Optional.of(property));
+        when(repository.save(property)).thenReturn(property);
+        when(s3Service.save(any(Path.class), anyString()))
+                .thenAnswer(invocation -> new URL("https://bucket/" + invocation.getArgument(1)));
+        ReflectionTestUtils.setField(pipeline, "s3Service", s3Service);
+        ReflectionTestUtils.setField(pipeline, "propertyBaseRepository", repository);
+        ReflectionTestUtils.setField(pipeline, "searchResultCache", mock(SearchResultCache.class));
+        ReflectionTestUtils.setField(pipeline, "parallelUploader", uploader);
+        imageResizer = mock(ImageResizer.class);
+        ReflectionTestUtils.setField(pipeline, "imageResizer", imageResizer);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pipeline.shutdown();
+        uploader.shutdown();
+    }
+
+    @Test
+    public void uploadsSpooledImagesAndAttachesThemInOrder() throws Exception {
+        when(imageResizer.save(any(), anyString())).thenAnswer(invocation -> imageNumber(invocation.getArgument(0)) == 1
+                ? Map.of(300, new URL("https://bucket/image1_w300")) : Map.of());
+        List<Path> spooled = new ArrayList<>();
+        List<String> filenames = new ArrayList<>();
+        when(s3Service.save(any(Path.class), anyString())).thenAnswer(invocation -> {
+            spooled.add(invocation.getArgument(0));
+            filenames.add(invocation.getArgument(1));
+            return new URL("https://bucket/image" + imageNumber(new PathResource((Path) invocation.getArgument(0))));
+        });
+
+        ImageUploadStatus status = pipeline.submit(PROPERTY_ID, pipeline.spool(images(2)));
+        await(status);
+
+        assertThat(status.getState()).isEqualTo(ImageUploadStatus.State.COMPLETE);
+        assertThat(status.getUploaded()).isEqualTo(2);
+        assertThat(property.getImages()).extracting(URL::toString)
+                .containsExactly("https://bucket/image0", "https://bucket/image1");
+        assertThat(property.getImageVariants())
+                .containsExactly(Map.of(), Map.of(300, new URL("https://bucket/image1_w300")));
+        assertThat(filenames).allMatch(filename -> filename.matches("property_5_image_[0-9a-f-]{36}"))
+                .doesNotHaveDuplicates();
+        assertThat(spooled).noneMatch(Files::exists);
+        assertThat(pipeline.getStatus(PROPERTY_ID)).contains(status);
+    }
+
+    @Test
+    public void failedUploadAttachesNothingAndDiscardsTheRest() throws Exception {
+        List<String> filenames = new ArrayList<>();
+        when(s3Service.save(any(Path.class), anyString())).thenAnswer(invocation -> {
+            filenames.add(invocation.getArgument(1));
+            if (imageNumber(new PathResource((Path) invocation.getArgument(0))) == 1)
+                throw new AmazonClientException("boom");
+            return new URL("https://bucket/" + invocation.getArgument(1));
+        });
+
+        ImageUploadStatus status = pipeline.submit(PROPERTY_ID, pipeline.spool(images(2)));
+        await(status);
+
+        assertThat(status.getState()).isEqualTo(ImageUploadStatus.State.FAILED);
+        assertThat(status.getErrors()).containsExactly("boom");
+        assertThat(property.getImages()).isEmpty();
+        verify(s3Service).discard(argThat(discarded -> discarded.containsAll(filenames) && discarded.size() == 2),
+                any());
+    }
+
+    @Test
+    public void attachRetriesOnAFreshRowWhenAnotherUploadWroteFirst() throws Exception {
+        RentalProperty stale = initRentalProperty(null).withImages(new ArrayList<>()).build();
+        RentalProperty fresh = initRentalProperty(null).withImages(new ArrayList<>(List.of(new URL("https://bucket/other"))))
+                .build();
+        when(repository.findWithImagesById(PROPERTY_ID)).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(repository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Property.class, PROPERTY_ID))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Property attached = pipeline.attach(PROPERTY_ID, List.of(Map.entry(new URL("https://bucket/mine"), Map.of())));
+
+        assertThat(attached).isSameAs(fresh);
+        assertThat(attached.getImages()).extracting(URL::toString)
+                .containsExactly("https://bucket/other", "https://bucket/mine");
+        verify(repository, times(2)).save(any());
+    }
+
+    @Test
+    public void rejectsNewUploadsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Service.save(any(Path.class), anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new URL("https://bucket/" + invocation.getArgument(1));
+        });
+
+        ImageUploadStatus running = pipeline.submit(PROPERTY_ID, pipeline.spool(images(1)));
+        while (running.getState() == ImageUploadStatus.State.QUEUED)
+            Thread.sleep(10);
+        ImageUploadStatus queued = pipeline.submit(PROPERTY_ID, pipeline.spool(images(1)));
+
+        assertThrows(ImageQueueFullException.class, () -> pipeline.spool(images(1)));
+        release.countDown();
+        await(queued);
+        assertThat(property.getImages()).hasSize(2);
+    }
+
+    private static MultipartFile[] images(int count) {
+        MultipartFile[] images = new MultipartFile[count];
+        for (int i = 0; i < count; i++)
+            images[i] = new MockMultipartFile("images", "image" + i, "image/jpeg", new byte[]{(byte) i});
+        return images;
+    }
+
+    private static int imageNumber(InputStreamSource image) throws IOException {
+        try (InputStream inputStream = image.getInputStream()) {
+            return inputStream.read();
+        }
+    }
+
+    private static void await(ImageUploadStatus status) throws InterruptedException {
+        for (int attempt = 0; attempt < 500 && !status.isFinished(); attempt++)
+            Thread.sleep(10);
+    }
+}
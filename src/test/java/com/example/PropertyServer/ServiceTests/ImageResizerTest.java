@@ -0,0 +1,104 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Services.ImageResizer;
+import com.example.PropertyServer.Services.S3Service;
+import com.example.PropertyServer.TestUtils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class ImageResizerTest {
+
+    private ImageResizer imageResizer;
+    private S3Service s3Service;
+    private final Map<String, byte[]> stored = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        imageResizer = new ImageResizer(new int[]{800, 300, 2000}, 2, 1_000_000);
+        s3Service = mock(S3Service.class);
+        when(s3Service.save(any(byte[].class), eq("image/jpeg"), anyString())).thenAnswer(invocation -> {
+            stored.put(invocation.getArgument(2), invocation.getArgument(0));
+            return new URL("https://bucket/" + invocation.getArgument(2));
+        });
+        ReflectionTestUtils.setField(imageResizer, "s3Service", s3Service);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        imageResizer.shutdown();
+    }
+
+    @Test
+    public void storesEveryWidthNarrowerThanTheOriginalNextToIt() throws IOException {
+        MockMultipartFile image = TestUtils.createImageMultipart(1).get(0);
+
+        Map<Integer, URL> variants = imageResizer.save(image, "property_1_image_0");
+
+        assertThat(variants).containsOnlyKeys(300, 800);
+        assertThat(variants.get(300)).hasToString("https://bucket/property_1_image_0_w300");
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(stored.get("property_1_image_0_w300")));
+        assertThat(thumbnail.getWidth()).isEqualTo(300);
+        assertThat(thumbnail.getHeight()).isEqualTo(200);
+        assertThat(stored.get("property_1_image_0_w300").length).isLessThan(image.getBytes().length);
+        assertThat(imageResizer.variantFilenames("property_1_image_0")).containsExactly(
+                "property_1_image_0_w300", "property_1_image_0_w800", "property_1_image_0_w2000");
+    }
+
+    @Test
+    public void storesNoVariantsForImagesWhoseHeaderDeclaresTooManyPixels() throws IOException {
+        MockMultipartFile bomb = new MockMultipartFile("images", "bomb.png", "image/png", pngHeader(50_000, 50_000));
+
+        assertThat(imageResizer.save(bomb, "property_1_image_2")).isEmpty();
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    public void storesNoVariantsForFilesThatAreNotImages() throws IOException {
+        MockMultipartFile floorplan = new MockMultipartFile("images", "floorplan.pdf", "application/pdf",
+                "%PDF-1.4".getBytes());
+
+        assertThat(imageResizer.save(floorplan, "property_1_image_1")).isEmpty();
+        verifyNoInteractions(s3Service);
+    }
+
+    // Only the signature and IHDR chunk: enough for a reader to report dimensions without any pixel data behind them.
+    private static byte[] pngHeader(int width, int height) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(chunk);
+        ihdr.writeBytes("IHDR");
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.write(new byte[]{8, 2, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(chunk.toByteArray());
+        out.writeInt(13);
+        out.write(chunk.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return png.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Services.ParallelUploader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParallelUploaderTest {
+
+    private ParallelUploader uploader;
+
+    @BeforeEach
+    public void setUp() {
+        uploader = new ParallelUploader(8, 3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    public void returnsResultsInSubmissionOrderWithinTheParallelismCap() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+        List<Callable<Integer>> uploads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            uploads.add(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(10L * (10 - index));
+                inFlight.decrementAndGet();
+                return index;
+            });
+        }
+
+        assertThat(uploader.uploadAll(uploads)).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(maxInFlight.get()).isBetween(2, 3);
+    }
+
+    @Test
+    public void failureCancelsUploadsStillInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(2), interrupted = new CountDownLatch(2);
+        AtomicInteger calls = new AtomicInteger();
+        List<Callable<Integer>> uploads = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+            uploads.add(() -> {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return 0;
+            });
+        uploads.add(() -> {
+            calls.incrementAndGet();
+            started.await();
+            throw new IOException("boom");
+        });
+        uploads.add(() -> calls.incrementAndGet());
+
+        IOException thrown = assertThrows(IOException.class, () -> uploader.uploadAll(uploads));
+
+        assertThat(thrown).hasMessage("boom");
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void failureIsRethrownOnlyAfterUploadsIgnoringInterruptsHaveReturned() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean landed = new AtomicBoolean();
+        List<Callable<Integer>> uploads = new ArrayList<>();
+        uploads.add(() -> {
+            started.countDown();
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+            while (System.nanoTime() < until)
+                Thread.onSpinWait();
+            landed.set(true);
+            return 0;
+        });
+        uploads.add(() -> {
+            started.await();
+            throw new IOException("boom");
+        });
+
+        assertThrows(IOException.class, () -> uploader.uploadAll(uploads));
+
+        assertThat(landed).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Search.PostcodeCount;
+import com.example.PropertyServer.Search.PostcodeTrie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PostcodeTrieTest {
+
+    private PostcodeTrie trie;
+
+    @BeforeEach
+    public void setUp() {
+        trie = new PostcodeTrie();
+        trie.add("BN1 6DH", 1);
+        trie.add("bn16dh", 2);
+        trie.add("BN16 3AB", 3);
+        trie.add("N2 9PJ", 4);
+        trie.add("N22 1AB", 5);
+        trie.add("GU15 1BF", 6);
+    }
+
+    @Test
+    public void normalisesOutwardAndInwardCode() {
+        assertThat(PostcodeTrie.normalise("tq69ez")).isEqualTo("TQ6 9EZ");
+        assertThat(PostcodeTrie.normalise(" GU15   1BF ")).isEqualTo("GU15 1BF");
+        assertThat(PostcodeTrie.normalise("bn1  6")).isEqualTo("BN1 6");
+    }
+
+    @Test
+    public void findsIdsByPrefix() {
+        assertThat(trie.find("BN1 6").stream().toArray()).containsExactly(1, 2);
+        assertThat(trie.find("BN1").stream().toArray()).containsExactly(1, 2, 3);
+        assertThat(trie.find("N2").stream().toArray()).containsExactly(4, 5);
+        assertThat(trie.find("GU15").stream().toArray()).containsExactly(6);
+        assertThat(trie.find("TQ6").isEmpty()).isTrue();
+    }
+
+    @Test
+    public void removeDropsIdAndKeepsSiblings() {
+        trie.remove("BN1 6DH", 1);
+        trie.remove("BN1 6DH", 2);
+
+        assertThat(trie.find("BN1").stream().toArray()).containsExactly(3);
+        assertThat(trie.find("").cardinality()).isEqualTo(4);
+    }
+
+    @Test
+    public void listsPostcodesInOrderFromCursor() {
+        List<PostcodeCount> firstPage = trie.list("", null, 3);
+        assertThat(postcodes(firstPage)).containsExactly("BN1 6DH", "BN16 3AB", "GU15 1BF");
+        assertThat(firstPage.get(0).getCount()).isEqualTo(2);
+
+        List<PostcodeCount> secondPage = trie.list("", "GU15 1BF", 3);
+        assertThat(postcodes(secondPage)).containsExactly("N2 9PJ", "N22 1AB");
+    }
+
+    private static List<String> postcodes(List<PostcodeCount> counts) {
+        return counts.stream().map(PostcodeCount::getPostcode).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.PropertyType;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Search.Coordinates;
+import com.example.PropertyServer.Search.FacetBuckets;
+import com.example.PropertyServer.Search.FacetCounts;
+import com.example.PropertyServer.Search.GeoMatch;
+import com.example.PropertyServer.Search.PropertySearchIndex;
+import com.example.PropertyServer.Search.TextMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PropertySearchIndexTest {
+
+    private PropertySearchIndex index;
+
+    private final Agent agent = initAgent().build();
+
+    @BeforeEach
+    public void setUp() {
+        index = new PropertySearchIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    public void searchIntersectsFieldIndexes() {
+        index.index(withId(initRentalProperty(agent).build(), 1));
+        index.index(withId(initRentalProperty(agent).withBedrooms(5).build(), 2));
+        index.index(withId(initRentalProperty(agent).withType(PropertyType.HOUSE_TERRACED).build(), 3));
+        index.index(withId(initSaleProperty(agent).withLocation(initLocation().withCity("Leeds").build()).build(), 4));
+        index.index(withId(initSaleProperty(agent).build(), 5));
+
+        BitSet ids = index.search(Property.class, Map.of("city", "York", "type", "FLAT", "min", "2", "max", "4"));
+
+        assertThat(ids.stream().toArray()).containsExactly(1, 5);
+    }
+
+    @Test
+    public void searchByPostcodePrefix() {
+        index.index(withId(initRentalProperty(agent).build(), 1));
+        index.index(withId(initRentalProperty(agent).withLocation(initLocation().withPostcode("MC7 8PQ").build())
+                .build(), 2));
+
+        assertThat(index.search(Property.class, Map.of("postcode", "YO")).stream().toArray()).containsExactly(1);
+    }
+
+    @Test
+    public void searchRestrictsToSubtypeAndSubtypeFilters() {
+        index.index(withId(initRentalProperty(agent).withMonthlyRent(1000).build(), 1));
+        index.index(withId(initRentalProperty(agent).withMonthlyRent(2000).build(), 2));
+        index.index(withId(initSaleProperty(agent).withPrice(200000).build(), 3));
+        index.index(withId(initSaleProperty(agent).withPrice(400000).build(), 4));
+
+        assertThat(index.search(RentalProperty.class, Map.of("maxMonthlyRent", "1500")).stream().toArray())
+                .containsExactly(1);
+        assertThat(index.search(SaleProperty.class, Map.of("minPrice", "300000")).stream().toArray())
+                .containsExactly(4);
+    }
+
+    @Test
+    public void searchAppliesSubtypeFiltersAcrossTypes() {
+        index.index(withId(initRentalProperty(agent).withMonthlyRent(1000).build(), 1));
+        index.index(withId(initRentalProperty(agent).withMonthlyRent(2000).build(), 2));
+        index.index(withId(initSaleProperty(agent).withPrice(200000).build(), 3));
+        index.index(withId(initSaleProperty(agent).withPrice(400000).build(), 4));
+
+        assertThat(index.search(Property.class, Map.of("maxMonthlyRent", "1500", "maxPrice", "250000")).stream()
+                .toArray()).containsExactly(1, 3);
+        assertThat(index.search(Property.class, Map.of("minPrice", "300000")).stream().toArray()).containsExactly(4);
+    }
+
+    @Test
+    public void reindexReplacesPreviousAttributes() {
+        RentalProperty property = withId(initRentalProperty(agent).build(), 1);
+        index.index(property);
+        property.setBedrooms(6);
+        index.index(property);
+
+        assertThat(index.search(Property.class, Map.of("max", "4")).isEmpty()).isTrue();
+        assertThat(index.search(Property.class, Map.of("min", "6")).stream().toArray()).containsExactly(1);
+    }
+
+    @Test
+    public void nearReturnsMatchesWithinRadiusByDistance() {
+        index.index(located(withId(initRentalProperty(agent).build(), 1), 53.96, -1.08));
+        index.index(located(withId(initRentalProperty(agent).build(), 2), 53.95, -1.09));
+        index.index(located(withId(initSaleProperty(agent).build(), 3), 53.80, -1.55));
+        index.index(withId(initRentalProperty(agent).build(), 4));
+
+        List<GeoMatch> matches = index.near(Property.class, Map.of(), new Coordinates(53.95, -1.09), 5);
+
+        assertThat(matches).extracting(GeoMatch::getId).containsExactly(2, 1);
+        assertThat(matches.get(0).getDistanceKm()).isZero();
+        assertThat(index.near(SaleProperty.class, Map.of(), new Coordinates(53.95, -1.09), 50))
+                .extracting(GeoMatch::getId).containsExactly(3);
+    }
+
+    @Test
+    public void textRanksMatchesAcrossStreetCityAndCounty() {
+        index.index(withId(initRentalProperty(agent).build(), 1));
+        index.index(withId(initRentalProperty(agent).withLocation(initLocation().withStreet("York Road")
+                .withCity("Leeds").build()).build(), 2));
+        index.index(withId(initSaleProperty(agent).withLocation(initLocation().withStreet("Station Road")
+                .withCity("Leeds").build()).build(), 3));
+
+        assertThat(index.text(Property.class, Map.of(), "York")).extracting(TextMatch::getId).containsExactly(2, 1, 3);
+        assertThat(index.text(Property.class, Map.of(), "sta LEEDS")).extracting(TextMatch::getId).containsExactly(3);
+        assertThat(index.text(SaleProperty.class, Map.of(), "road")).extracting(TextMatch::getId).containsExactly(3);
+        assertThat(index.text(Property.class, Map.of("city", "York"), "road")).isEmpty();
+    }
+
+    @Test
+    public void textScoresHoldForAGenerationWhileOtherPropertiesAreIndexed() {
+        for (int id = 1; id <= 20; id++)
+            index.index(withId(initRentalProperty(agent).withLocation(initLocation()
+                    .withStreet(id % 2 == 0 ? "York Road" : "Mill Lane").withCity("Leeds").build()).build(), id));
+        List<TextMatch> first = index.text(Property.class, Map.of(), "york leeds");
+
+        for (int id = 21; id <= 40; id++)
+            index.index(withId(initRentalProperty(agent).withLocation(initLocation().withStreet("York Road")
+                    .withCity("Leeds").build()).build(), id));
+        List<TextMatch> again = index.text(Property.class, Map.of(), "york leeds", first.get(0).getGeneration());
+
+        assertThat(again).filteredOn(match -> match.getId() <= 20)
+                .extracting(match -> match.getId() + "=" + match.getScore())
+                .containsExactlyElementsOf(first.stream().map(match -> match.getId() + "=" + match.getScore())
+                        .collect(Collectors.toList()));
+        assertThat(index.text(Property.class, Map.of(), "york leeds").get(0).getGeneration())
+                .isGreaterThan(first.get(0).getGeneration());
+    }
+
+    @Test
+    public void reindexReplacesTextTerms() {
+        RentalProperty property = withId(initRentalProperty(agent).build(), 1);
+        index.index(property);
+        property.setLocation(initLocation().withStreet("Mill Lane").build());
+        index.index(property);
+
+        assertThat(index.text(Property.class, Map.of(), "harley")).isEmpty();
+        assertThat(index.text(Property.class, Map.of(), "mill")).extracting(TextMatch::getId).containsExactly(1);
+    }
+
+    @Test
+    public void facetsCountMatchingProperties() {
+        index.index(withId(initRentalProperty(agent).build(), 1));
+        index.index(withId(initRentalProperty(agent).withMonthlyRent(700).withBedrooms(1).build(), 2));
+        index.index(withId(initSaleProperty(agent).withType(PropertyType.HOUSE_DETACHED).build(), 3));
+        index.index(withId(initSaleProperty(agent).withLocation(initLocation().withCity("Leeds").build()).build(), 4));
+        FacetBuckets prices = new FacetBuckets(new int[]{250000, 500000});
+        FacetBuckets rents = new FacetBuckets(new int[]{1000});
+
+        FacetCounts all = new FacetCounts(prices, rents);
+        index.facets(Map.of(), all);
+        FacetCounts york = new FacetCounts(prices, rents);
+        index.facets(Map.of("city", "York", "min", "2"), york);
+
+        assertThat(all.getTotal()).isEqualTo(4);
+        assertThat(all.getCity()).containsEntry("York", 3L).containsEntry("Leeds", 1L);
+        assertThat(all.getMonthlyRent()).containsEntry("0-1000", 1L).containsEntry("1000+", 1L);
+        assertThat(york.getTotal()).isEqualTo(2);
+        assertThat(york.getType()).containsEntry(PropertyType.FLAT, 1L).containsEntry(PropertyType.HOUSE_DETACHED, 1L);
+        assertThat(york.getBedrooms()).containsOnlyKeys(3);
+        assertThat(york.getPrice()).containsEntry("250000-500000", 1L).containsEntry("500000+", 0L);
+        assertThat(york.getMonthlyRent()).containsEntry("0-1000", 0L).containsEntry("1000+", 1L);
+    }
+
+    @Test
+    public void unsupportedFieldThrows() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(Property.class, Map.of("wheels", "4")));
+    }
+
+    private static <T extends Property> T located(T property, double latitude, double longitude) {
+        property.setLatitude(latitude);
+        property.setLongitude(longitude);
+        return property;
+    }
+
+    private static <T extends Property> T withId(T property, int id) {
+        property.setId(id);
+        return property;
+    }
+}
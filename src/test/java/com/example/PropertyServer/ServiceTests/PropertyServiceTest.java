@@ -1,19 +1,32 @@
 package com.example.PropertyServer.ServiceTests;
 
 import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Agent.AgentPortfolios;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
+import com.example.PropertyServer.Property.ImageUploadStatus;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.RentalProperty;
 import com.example.PropertyServer.Property.SaleProperty;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
 import com.example.PropertyServer.Repositories.AgentRepository;
+import com.example.PropertyServer.Pagination.Cursor;
+import com.example.PropertyServer.Pagination.CursorPage;
 import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Repositories.PropertySearchRepository;
 import com.example.PropertyServer.Repositories.RentalPropertyRepository;
 import com.example.PropertyServer.Repositories.SalePropertyRepository;
+import com.example.PropertyServer.Search.Gazetteer;
+import com.example.PropertyServer.Search.PropertySearchIndex;
+import com.example.PropertyServer.Search.SearchResultCache;
+import com.example.PropertyServer.Services.ImagePipeline;
+import com.example.PropertyServer.Services.ImageResizer;
+import com.example.PropertyServer.Services.ParallelUploader;
 import com.example.PropertyServer.Services.PropertyService;
+import com.example.PropertyServer.Services.SavedSearchService;
 import com.example.PropertyServer.Services.S3Service;
 import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
@@ -26,7 +39,9 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -35,6 +50,7 @@ import static com.example.PropertyServer.Builders.BuilderDirector.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @SpringJUnitConfig
@@ -58,6 +74,30 @@ public class PropertyServiceTest {
     @MockBean
     SpecificationBuilder specificationBuilder;
 
+    @MockBean
+    PropertySearchRepository propertySearchRepository;
+
+    @MockBean
+    PropertySearchIndex propertySearchIndex;
+
+    @MockBean
+    Gazetteer gazetteer;
+
+    @MockBean
+    SearchResultCache searchResultCache;
+
+    @MockBean
+    SavedSearchService savedSearchService;
+
+    @MockBean
+    AgentPortfolios agentPortfolios;
+
+    @MockBean
+    ImagePipeline imagePipeline;
+
+    @MockBean
+    ImageResizer imageResizer;
+
     @Configuration
     static class Config {
 
@@ -65,6 +105,11 @@ public class PropertyServiceTest {
         PropertyService propertyService() {
             return new PropertyService();
         }
+
+        @Bean
+        ParallelUploader parallelUploader() {
+            return new ParallelUploader(2, 2);
+        }
     }
 
     @Autowired
@@ -76,18 +121,37 @@ public class PropertyServiceTest {
         MultipartFile file1 = mock(MockMultipartFile.class), file2 = mock(MockMultipartFile.class),
                 file3 = mock(MockMultipartFile.class);
         Agent agent = mock(Agent.class);
-        URL url = new URL("https://url");
-        int AGENT_ID = 1;
+        int AGENT_ID = 1, PROPERTY_ID = 2;
+        MultipartFile[] images = {file1, file2, file3};
+        ImagePipeline.Upload upload = mock(ImagePipeline.Upload.class);
 
         when(agentRepository.findById(AGENT_ID)).thenReturn(Optional.ofNullable(agent));
         when(rentalPropertyRepository.save(property)).thenReturn(property);
-        when(s3Service.save(any(MockMultipartFile.class), anyString())).thenReturn(url);
+        when(property.getId()).thenReturn(PROPERTY_ID);
+        when(imagePipeline.spool(images)).thenReturn(upload);
 
-        RentalProperty rentalProperty =
-                propertyService.createRentalProperty(property, AGENT_ID, new MultipartFile[]{file1, file2, file3});
+        RentalProperty rentalProperty = propertyService.createRentalProperty(property, AGENT_ID, images);
 
         assertThat(rentalProperty).isEqualTo(property);
-        verify(property, times(3)).addImage(url);
+        verify(property).setAgent(agent);
+        verify(imagePipeline).submit(PROPERTY_ID, upload);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    public void createRentalPropertyDiscardsSpooledImagesWhenSaveFails() throws IOException {
+        RentalProperty property = initRentalProperty(null).withImages(new ArrayList<>()).build();
+        MultipartFile[] images = {mock(MockMultipartFile.class), mock(MockMultipartFile.class)};
+        ImagePipeline.Upload upload = mock(ImagePipeline.Upload.class);
+
+        when(agentRepository.findById(1)).thenReturn(Optional.of(mock(Agent.class)));
+        when(imagePipeline.spool(images)).thenReturn(upload);
+        when(rentalPropertyRepository.save(property)).thenThrow(new RuntimeException("commit failed"));
+
+        assertThrows(RuntimeException.class, () -> propertyService.createRentalProperty(property, 1, images));
+        verify(upload).discard();
+        verify(imagePipeline, never()).submit(anyInt(), any());
+        verifyNoInteractions(propertySearchIndex, savedSearchService);
     }
 
     @Test
@@ -96,18 +160,20 @@ public class PropertyServiceTest {
         MultipartFile file1 = mock(MockMultipartFile.class), file2 = mock(MockMultipartFile.class),
                 file3 = mock(MockMultipartFile.class);
         Agent agent = mock(Agent.class);
-        URL url = new URL("https://url");
-        int AGENT_ID = 1;
+        int AGENT_ID = 1, PROPERTY_ID = 2;
+        MultipartFile[] images = {file1, file2, file3};
+        ImagePipeline.Upload upload = mock(ImagePipeline.Upload.class);
 
         when(agentRepository.findById(AGENT_ID)).thenReturn(Optional.of(agent));
         when(salePropertyRepository.save(property)).thenReturn(property);
-        when(s3Service.save(any(MockMultipartFile.class), anyString())).thenReturn(url);
+        when(property.getId()).thenReturn(PROPERTY_ID);
+        when(imagePipeline.spool(images)).thenReturn(upload);
 
-        SaleProperty returnedProperty = propertyService.createSaleProperty(property, AGENT_ID,
-                new MultipartFile[]{file1, file2, file3});
+        SaleProperty returnedProperty = propertyService.createSaleProperty(property, AGENT_ID, images);
 
         assertThat(returnedProperty).isEqualTo(property);
-        verify(property, times(3)).addImage(url);
+        verify(imagePipeline).submit(PROPERTY_ID, upload);
+        verifyNoInteractions(s3Service);
     }
 
     @Test
@@ -179,6 +245,54 @@ public class PropertyServiceTest {
         assertThat(returnedProperties).isEqualTo(properties);
     }
 
+    @Test
+    public void getPropertyPageReturnsNextCursorWhenMoreRowsExist() {
+        Property first = mock(Property.class), second = mock(Property.class), third = mock(Property.class);
+        when(second.getId()).thenReturn(2);
+        Specification<Property> spec = mock(Specification.class);
+        Map<String, String> params = Map.of("KEY_1", "VALUE_1");
+        when(specificationBuilder.build(params)).thenReturn(spec);
+        when(propertySearchRepository.findAll(Property.class, spec, 3)).thenReturn(Arrays.asList(first, second, third));
+
+        CursorPage<Property> page = propertyService.getAllProperties(params, 2, null, null);
+
+        assertThat(page.getContent()).containsExactly(first, second);
+        assertThat(Cursor.decode(page.getNext()).getId()).isEqualTo(2);
+    }
+
+    @Test
+    public void getPropertyPageHasNoNextCursorOnLastPage() {
+        Property first = mock(Property.class);
+        Specification<Property> spec = mock(Specification.class);
+        Map<String, String> params = Map.of("KEY_1", "VALUE_1");
+        when(specificationBuilder.build(params)).thenReturn(spec);
+        when(propertySearchRepository.findAll(Property.class, spec, 3)).thenReturn(Arrays.asList(first));
+
+        CursorPage<Property> page = propertyService.getAllProperties(params, 2, null, null);
+
+        assertThat(page.getContent()).containsExactly(first);
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void getPropertiesFromSearchIndexWhenEnabled() {
+        Property first = mock(Property.class), second = mock(Property.class);
+        when(first.getId()).thenReturn(3);
+        when(second.getId()).thenReturn(7);
+        Map<String, String> params = Map.of("KEY_1", "VALUE_1");
+        BitSet ids = new BitSet();
+        ids.set(3);
+        ids.set(7);
+        when(propertySearchIndex.isEnabled()).thenReturn(true);
+        when(propertySearchIndex.search(Property.class, params)).thenReturn(ids);
+        when(propertyBaseRepository.findAllById(List.of(3, 7))).thenReturn(Arrays.asList(second, first));
+
+        List<Property> returnedProperties = propertyService.getAllProperties(params);
+
+        assertThat(returnedProperties).containsExactly(first, second);
+        verify(propertyBaseRepository, never()).findAll(any(Specification.class));
+    }
+
     @Test
     public void createSalePropertyThrowsAgentNotFoundException() {
         int AGENT_ID = 1;
@@ -195,13 +309,45 @@ public class PropertyServiceTest {
                 mock(RentalProperty.class), AGENT_ID, new MultipartFile[]{mock(MultipartFile.class)}));
     }
 
+    @Test
+    public void untrackedImageUploadIsReportedAsUnknown() throws MalformedURLException {
+        RentalProperty property = initRentalProperty(initAgent().build())
+                .withImages(new ArrayList<>(List.of(new URL("https://bucket/image")))).build();
+        property.setId(4);
+        when(imagePipeline.getStatus(4)).thenReturn(Optional.empty());
+        when(propertyBaseRepository.findById(4)).thenReturn(Optional.of(property));
+
+        ImageUploadStatus status = propertyService.getImageStatus(4);
+
+        assertThat(status.getState()).isEqualTo(ImageUploadStatus.State.UNKNOWN);
+        assertThat(status.getUploaded()).isEqualTo(1);
+    }
+
     @Test
     public void addImagesThrowsPropertyNotFound() {
         int PROPERTY_ID = 1;
-        when(propertyBaseRepository.findById(PROPERTY_ID)).thenThrow(new PropertyNotFoundException(PROPERTY_ID));
+        when(propertyBaseRepository.existsById(PROPERTY_ID)).thenReturn(false);
 
         assertThrows(PropertyNotFoundException.class, () -> propertyService.addImagesToProperty(PROPERTY_ID,
                 new MultipartFile[]{mock(MultipartFile.class)}));
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    public void addImagesToPropertyKeepsImageOrderAndDiscardsEveryUploadOnFailure() throws IOException {
+        int PROPERTY_ID = 3;
+        MultipartFile file1 = mock(MultipartFile.class), file2 = mock(MultipartFile.class);
+        when(propertyBaseRepository.existsById(PROPERTY_ID)).thenReturn(true);
+        when(s3Service.save(eq(file1), anyString())).thenThrow(new IOException("boom"));
+        when(s3Service.save(eq(file2), anyString())).thenReturn(new URL("https://bucket/property_3_image_1"));
+
+        assertThrows(IOException.class, () -> propertyService.addImagesToProperty(PROPERTY_ID,
+                new MultipartFile[]{file1, file2}));
+        ArgumentCaptor<List<String>> discarded = ArgumentCaptor.forClass(List.class);
+        verify(s3Service).discard(discarded.capture(), any());
+        assertThat(discarded.getValue()).hasSize(2).doesNotHaveDuplicates()
+                .allMatch(filename -> filename.matches("property_3_image_[0-9a-f-]{36}"));
+        verifyNoInteractions(imagePipeline);
     }
 
 
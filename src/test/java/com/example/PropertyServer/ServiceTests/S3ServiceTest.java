@@ -1,21 +1,30 @@
 package com.example.PropertyServer.ServiceTests;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.example.PropertyServer.Services.ChunkedUploader;
 import com.example.PropertyServer.Services.S3Service;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
-import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @SpringJUnitConfig
@@ -37,6 +46,9 @@ public class S3ServiceTest {
     @MockBean
     AmazonS3 s3;
 
+    @MockBean
+    ChunkedUploader chunkedUploader;
+
     @Autowired
     S3Service s3Service;
 
@@ -48,7 +60,7 @@ public class S3ServiceTest {
 
     @Test
     public void canUploadFile() throws IOException {
-        MultipartFile multipartFile = mock(MultipartFile.class);
+        MultipartFile multipartFile = new MockMultipartFile("images", "image.jpg", "image/jpeg", new byte[]{1, 2, 3});
         URL url = new URL("https://url");
         String filename = "property_image_1_1";
         when(s3.getUrl(eq(S3_BUCKET_NAME), eq(filename))).thenReturn(url);
@@ -56,7 +68,38 @@ public class S3ServiceTest {
         URL returnedURL = s3Service.save(multipartFile, filename);
 
         assertThat(returnedURL).isEqualTo(url);
-        verify(multipartFile).transferTo(any(Path.class));
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3).putObject(request.capture());
+        assertThat(request.getValue().getFile()).isNull();
+        assertThat(request.getValue().getMetadata().getContentLength()).isEqualTo(3);
+        assertThat(request.getValue().getMetadata().getContentType()).isEqualTo("image/jpeg");
+    }
 
+    @Test
+    public void spoolsAndDeletesFileOfUnknownLength() throws IOException {
+        MultipartFile multipartFile = mock(MultipartFile.class);
+        when(multipartFile.getSize()).thenReturn(-1L);
+        List<File> spooled = new ArrayList<>();
+        doAnswer(invocation -> spooled.add(invocation.getArgument(0))).when(multipartFile).transferTo(any(File.class));
+
+        s3Service.save(multipartFile, "property_image_1_2");
+
+        verify(s3).putObject(eq(S3_BUCKET_NAME), eq("property_image_1_2"), eq(spooled.get(0)));
+        assertThat(spooled.get(0)).doesNotExist();
+    }
+
+    @Test
+    public void uploadsLargeFileInParts() throws IOException {
+        S3Service chunkingService = new S3Service(S3_BUCKET_NAME);
+        ReflectionTestUtils.setField(chunkingService, "s3", s3);
+        ReflectionTestUtils.setField(chunkingService, "chunkedUploader", chunkedUploader);
+        ReflectionTestUtils.setField(chunkingService, "multipartThreshold", 2L);
+        MultipartFile multipartFile = new MockMultipartFile("images", "drone.jpg", "image/jpeg", new byte[]{1, 2, 3});
+
+        chunkingService.save(multipartFile, "property_image_1_3");
+
+        verify(chunkedUploader).upload(eq(S3_BUCKET_NAME), eq("property_image_1_3"), any(InputStream.class),
+                argThat(metadata -> metadata.getContentLength() == 3));
+        verify(s3, never()).putObject(any(PutObjectRequest.class));
     }
 }
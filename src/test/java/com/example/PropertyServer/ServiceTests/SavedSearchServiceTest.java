@@ -0,0 +1,231 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Exceptions.InvalidCursorException;
+import com.example.PropertyServer.Exceptions.InvalidSearchParameterException;
+import com.example.PropertyServer.Exceptions.SavedSearchNotFoundException;
+import com.example.PropertyServer.Pagination.CursorPage;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Repositories.SavedSearchRepository;
+import com.example.PropertyServer.Search.SavedSearch;
+import com.example.PropertyServer.Services.SavedSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SavedSearchServiceTest {
+
+    private static final String CLIENT = "192.0.2.1";
+
+    private SavedSearchService service;
+    private SavedSearchRepository savedSearchRepository;
+
+    private final Agent agent = initAgent().build();
+    private final RentalProperty cheapRental = withId(initRentalProperty(agent).withMonthlyRent(1000).build(), 1);
+    private final RentalProperty dearRental = withId(initRentalProperty(agent).withMonthlyRent(2500).build(), 2);
+    private final SaleProperty leedsSale = withId(initSaleProperty(agent)
+            .withLocation(initLocation().withCity("Leeds").build()).build(), 3);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        service = new SavedSearchService(1, 10);
+        PropertyBaseRepository<Property> repository = mock(PropertyBaseRepository.class);
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(cheapRental, dearRental, leedsSale));
+        ReflectionTestUtils.setField(service, "propertyBaseRepository", repository);
+        savedSearchRepository = mock(SavedSearchRepository.class);
+        AtomicInteger ids = new AtomicInteger();
+        when(savedSearchRepository.save(any())).thenAnswer(invocation -> {
+            SavedSearch search = invocation.getArgument(0);
+            search.setId(ids.incrementAndGet());
+            return search;
+        });
+        ReflectionTestUtils.setField(service, "savedSearchRepository", savedSearchRepository);
+        ReflectionTestUtils.setField(service, "maxPerClient", 2);
+        ReflectionTestUtils.setField(service, "maxPending", 10);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void subscribersAreNotifiedOffTheCreatingThread() throws Exception {
+        SavedSearch search = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT);
+        CountDownLatch release = new CountDownLatch(1), sent = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        SseEmitter slow = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder event) {
+                threads.add(Thread.currentThread().getName());
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                sent.countDown();
+            }
+        };
+        ((Map<Integer, List<SseEmitter>>) ReflectionTestUtils.getField(service, "emitters"))
+                .put(search.getId(), new CopyOnWriteArrayList<>(List.of(slow)));
+
+        service.onCreated(cheapRental);
+
+        assertThat(sent.getCount()).isEqualTo(1);
+        release.countDown();
+        assertThat(sent.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).singleElement().asString().startsWith("saved-search-sse-");
+    }
+
+    @Test
+    public void newListingsAreMatchedAgainstRegisteredSearches() {
+        SavedSearch yorkRentals = service.register(new SavedSearch(SavedSearch.RENTAL_PROPERTIES,
+                Map.of("city", "York", "maxMonthlyRent", "1500")), CLIENT);
+        SavedSearch anywhere = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of("min", "2")), CLIENT);
+
+        service.onCreated(cheapRental);
+        service.onCreated(dearRental);
+        service.onCreated(leedsSale);
+
+        assertThat(service.getMatches(yorkRentals.getId(), 10, null).getContent()).containsExactly(cheapRental);
+        assertThat(service.getMatches(anywhere.getId(), 10, null).getContent())
+                .containsExactly(cheapRental, dearRental, leedsSale);
+    }
+
+    @Test
+    public void postcodeFiltersIgnoreCaseAndSpacing() {
+        SavedSearch search = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of("postcode", "yo1 7")),
+                CLIENT);
+        RentalProperty unspaced = withId(initRentalProperty(agent).withLocation(initLocation().withPostcode("YO17HH")
+                .build()).build(), 1);
+
+        service.onCreated(unspaced);
+        service.onCreated(leedsSale);
+
+        assertThat(service.getMatches(search.getId(), 10, null).getContent()).containsExactly(cheapRental);
+    }
+
+    @Test
+    public void matchesArePagedWithCursor() {
+        SavedSearch search = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT);
+        service.onCreated(cheapRental);
+        service.onCreated(dearRental);
+        service.onCreated(leedsSale);
+
+        CursorPage<Property> first = service.getMatches(search.getId(), 2, null);
+        CursorPage<Property> second = service.getMatches(search.getId(), 2, first.getNext());
+
+        assertThat(first.getContent()).containsExactly(cheapRental, dearRental);
+        assertThat(second.getContent()).containsExactly(leedsSale);
+        assertThat(second.getNext()).isNull();
+    }
+
+    @Test
+    public void cursorFromAnEarlierBootIsRejected() throws InterruptedException {
+        SavedSearch search = new SavedSearch(SavedSearch.PROPERTIES, Map.of());
+        search.setId(7);
+        when(savedSearchRepository.findAll()).thenReturn(List.of(search));
+        service.loadSearches();
+        service.onCreated(cheapRental);
+        service.onCreated(dearRental);
+        String cursor = service.getMatches(7, 1, null).getNext();
+
+        service.shutdown();
+        Thread.sleep(2);
+        setUp();
+        when(savedSearchRepository.findAll()).thenReturn(List.of(search));
+        service.loadSearches();
+        service.onCreated(leedsSale);
+        service.onCreated(cheapRental);
+
+        assertThrows(InvalidCursorException.class, () -> service.getMatches(7, 10, cursor));
+        assertThat(service.getMatches(7, 10, null).getContent()).containsExactly(leedsSale, cheapRental);
+    }
+
+    @Test
+    public void invalidSearchesAreRejected() {
+        assertThrows(InvalidSearchParameterException.class, () -> service.register(
+                new SavedSearch(SavedSearch.RENTAL_PROPERTIES, Map.of("minPrice", "1")), CLIENT));
+        assertThrows(InvalidSearchParameterException.class, () -> service.register(
+                new SavedSearch(SavedSearch.PROPERTIES, Map.of("type", "CASTLE")), CLIENT));
+        assertThrows(InvalidSearchParameterException.class, () -> service.register(
+                new SavedSearch("boats", Map.of()), CLIENT));
+    }
+
+    @Test
+    public void deletedSearchIsNoLongerMatched() {
+        SavedSearch search = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of("city", "York")), CLIENT);
+
+        service.deleteSearch(search.getId(), search.getOwnerToken());
+        service.onCreated(cheapRental);
+
+        assertThrows(SavedSearchNotFoundException.class, () -> service.getMatches(search.getId(), 10, null));
+        verify(savedSearchRepository).deleteById(search.getId());
+    }
+
+    @Test
+    public void searchCanOnlyBeDeletedWithItsOwnerToken() {
+        SavedSearch search = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT);
+        SavedSearch other = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), "192.0.2.2");
+
+        assertThrows(SavedSearchNotFoundException.class, () -> service.deleteSearch(search.getId(), null));
+        assertThrows(SavedSearchNotFoundException.class,
+                () -> service.deleteSearch(search.getId(), other.getOwnerToken()));
+
+        assertThat(service.getSearch(search.getId())).isSameAs(search);
+        assertThat(search.getOwnerToken()).isNotEqualTo(other.getOwnerToken());
+    }
+
+    @Test
+    public void eachClientHasItsOwnLimit() {
+        SavedSearch first = service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT);
+        service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT);
+
+        assertThrows(InvalidSearchParameterException.class,
+                () -> service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT));
+        service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), "192.0.2.2");
+        service.deleteSearch(first.getId(), first.getOwnerToken());
+        service.register(new SavedSearch(SavedSearch.PROPERTIES, Map.of()), CLIENT);
+    }
+
+    @Test
+    public void storedSearchesAreMatchedAgainAfterARestart() {
+        SavedSearch stored = new SavedSearch(SavedSearch.RENTAL_PROPERTIES, Map.of("city", "York"));
+        stored.setId(7);
+        when(savedSearchRepository.findAll()).thenReturn(List.of(stored));
+
+        service.loadSearches();
+        service.onCreated(cheapRental);
+        service.onCreated(leedsSale);
+
+        assertThat(service.getMatches(7, 10, null).getContent()).containsExactly(cheapRental);
+    }
+
+    private static <T extends Property> T withId(T property, int id) {
+        property.setId(id);
+        return property;
+    }
+}
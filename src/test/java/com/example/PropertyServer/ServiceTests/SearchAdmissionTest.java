@@ -0,0 +1,56 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Exceptions.SearchRejectedException;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.PropertyBaseRepository;
+import com.example.PropertyServer.Search.SearchAdmission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SearchAdmissionTest {
+
+    private SearchAdmission admission;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        admission = new SearchAdmission(5000, 60000, 100, 1, 0, 3);
+        PropertyBaseRepository<Property> repository = mock(PropertyBaseRepository.class);
+        when(repository.count()).thenReturn(100000L);
+        ReflectionTestUtils.setField(admission, "propertyBaseRepository", repository);
+    }
+
+    @Test
+    public void selectiveSearchesAreCheap() {
+        try (SearchAdmission.Ticket ticket = admission.admit(Map.of("city", "York", "type", "FLAT"))) {
+            assertThat(ticket.isExpensive()).isFalse();
+            assertThat(ticket.limit(500)).isEqualTo(500);
+            assertThat(ticket.forcePagination(true)).isFalse();
+        }
+        assertThat(admission.estimateRows(Map.of("postcode", "YO7 8NY"))).isEqualTo(100);
+    }
+
+    @Test
+    public void unselectiveSearchesArePagedCappedAndLaned() {
+        try (SearchAdmission.Ticket ticket = admission.admit(Map.of("type", "FLAT"))) {
+            assertThat(ticket.isExpensive()).isTrue();
+            assertThat(ticket.limit(500)).isEqualTo(100);
+            assertThat(ticket.forcePagination(true)).isTrue();
+            assertThrows(SearchRejectedException.class, () -> admission.admit(Map.of()));
+        }
+        admission.admit(Map.of()).close();
+
+        assertThat(admission.getStats().getExpensive()).isEqualTo(2);
+        assertThat(admission.getStats().getRejected()).isEqualTo(1);
+        assertThat(admission.getStats().getCapped()).isEqualTo(1);
+        assertThat(admission.getStats().getRunning()).isZero();
+    }
+}
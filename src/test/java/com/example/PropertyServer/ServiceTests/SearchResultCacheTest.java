@@ -0,0 +1,108 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Agent.Agent;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Property.RentalProperty;
+import com.example.PropertyServer.Property.SaleProperty;
+import com.example.PropertyServer.Search.SearchResultCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.PropertyServer.Builders.BuilderDirector.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchResultCacheTest {
+
+    private SearchResultCache cache;
+
+    private final Agent agent = initAgent().build();
+
+    @BeforeEach
+    public void setUp() {
+        cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "maxWeight", 10L);
+    }
+
+    @Test
+    public void keysIgnoreParameterOrder() {
+        List<Property> result = List.of(withId(initRentalProperty(agent).build(), 1));
+        cache.put(new SearchResultCache.Key(Property.class, Map.of("city", "York", "min", "2")), result, result,
+                cache.version());
+
+        assertThat(cache.<List<Property>>get(new SearchResultCache.Key(Property.class,
+                Map.of("min", "2", "city", "York")))).isSameAs(result);
+        assertThat(cache.<List<Property>>get(new SearchResultCache.Key(RentalProperty.class,
+                Map.of("min", "2", "city", "York")))).isNull();
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void entriesExpireAfterTheirTimeToLive() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMillis", 50L);
+        SearchResultCache.Key key = new SearchResultCache.Key(Property.class, Map.of("city", "York"));
+        List<Property> result = List.of(withId(initRentalProperty(agent).build(), 1));
+        cache.put(key, result, result, cache.version());
+
+        assertThat(cache.<List<Property>>get(key)).isSameAs(result);
+        Thread.sleep(100);
+
+        assertThat(cache.<List<Property>>get(key)).isNull();
+        assertThat(cache.getStats().getExpirations()).isEqualTo(1);
+        assertThat(cache.getStats().getEntries()).isZero();
+        assertThat(cache.getStats().getWeight()).isZero();
+    }
+
+    @Test
+    public void evictDropsOnlyEntriesTheChangeCanAffect() {
+        SearchResultCache.Key york = new SearchResultCache.Key(Property.class, Map.of("city", "York"));
+        SearchResultCache.Key leeds = new SearchResultCache.Key(Property.class, Map.of("city", "Leeds"));
+        SearchResultCache.Key sales = new SearchResultCache.Key(SaleProperty.class, Map.of());
+        SearchResultCache.Key containing = new SearchResultCache.Key(RentalProperty.class, Map.of("min", "5"));
+        RentalProperty existing = withId(initRentalProperty(agent).withBedrooms(5).build(), 7);
+        cache.put(york, List.of(), List.of(), cache.version());
+        cache.put(leeds, List.of(), List.of(), cache.version());
+        cache.put(sales, List.of(), List.of(), cache.version());
+        cache.put(containing, List.of(existing), List.of(existing), cache.version());
+
+        existing.setBedrooms(2);
+        cache.evict(existing);
+
+        assertThat(cache.<List<Property>>get(york)).isNull();
+        assertThat(cache.<List<Property>>get(containing)).isNull();
+        assertThat(cache.<List<Property>>get(leeds)).isNotNull();
+        assertThat(cache.<List<Property>>get(sales)).isNotNull();
+        assertThat(cache.getStats().getInvalidations()).isEqualTo(2);
+    }
+
+    @Test
+    public void staleAndOversizedResultsAreNotStored() {
+        SearchResultCache.Key key = new SearchResultCache.Key(Property.class, Map.of());
+        long version = cache.version();
+        cache.evict(withId(initSaleProperty(agent).build(), 1));
+        cache.put(key, List.of(), List.of(), version);
+        assertThat(cache.getStats().getEntries()).isZero();
+
+        List<Property> large = List.of(withId(initSaleProperty(agent).build(), 1), withId(initSaleProperty(agent)
+                .build(), 2), withId(initSaleProperty(agent).build(), 3));
+        for (int i = 0; i < 4; i++)
+            cache.put(new SearchResultCache.Key(Property.class, Map.of(), 3, "page" + i, null), large, large,
+                    cache.version());
+
+        assertThat(cache.getStats().getEntries()).isEqualTo(2);
+        assertThat(cache.getStats().getWeight()).isEqualTo(8);
+        assertThat(cache.getStats().getEvictions()).isEqualTo(2);
+
+        cache.invalidateAll();
+        assertThat(cache.getStats().getEntries()).isZero();
+    }
+
+    private static <T extends Property> T withId(T property, int id) {
+        property.setId(id);
+        return property;
+    }
+}
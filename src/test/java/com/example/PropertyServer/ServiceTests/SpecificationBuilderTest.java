@@ -0,0 +1,45 @@
+package com.example.PropertyServer.ServiceTests;
+
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.SpecificationBuilders.PlanCacheStats;
+import com.example.PropertyServer.SpecificationBuilders.RentalPropertySpecificationBuilder;
+import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SpecificationBuilderTest {
+
+    @Test
+    public void planIsCachedPerCanonicalKeySet() {
+        SpecificationBuilder<Property> builder = new SpecificationBuilder<>();
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("type", "HOUSE_DETACHED");
+        reversed.put("city", "Leeds");
+
+        builder.build(Map.of("city", "York"));
+        builder.build(Map.of("city", "York", "type", "FLAT"));
+        builder.build(reversed);
+        builder.build(Map.of("city", "Hull"));
+
+        PlanCacheStats stats = builder.getPlanCacheStats();
+        assertThat(stats.getMisses()).isEqualTo(2);
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getSize()).isEqualTo(2);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void unsupportedFieldIsNotCached() {
+        RentalPropertySpecificationBuilder builder = new RentalPropertySpecificationBuilder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.build(Map.of("minPrice", "1")));
+        builder.build(Map.of("minMonthlyRent", "500"));
+
+        assertThat(builder.getPlanCacheStats().getSize()).isEqualTo(1);
+    }
+}
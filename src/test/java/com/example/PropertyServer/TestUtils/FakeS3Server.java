@@ -0,0 +1,192 @@
+package com.example.PropertyServer.TestUtils;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process S3 stand-in that speaks just enough of the REST protocol for single puts and multipart uploads. When
+ * given a rate, every request body is read no faster than that, the way a single long-lived connection is capped in
+ * production.
+ */
+public class FakeS3Server {
+
+    public static final String BUCKET = "propertyserverbucket";
+
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    public final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    public final Map<Integer, AtomicInteger> partAttempts = new ConcurrentHashMap<>();
+    public final Map<Integer, AtomicInteger> partFailures = new ConcurrentHashMap<>();
+    public final Set<String> aborted = ConcurrentHashMap.newKeySet();
+    public final List<Integer> completedParts = Collections.synchronizedList(new ArrayList<>());
+    public final AtomicInteger partsAfterAbort = new AtomicInteger();
+
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final int bytesPerSecond;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public FakeS3Server(int bytesPerSecond) throws IOException {
+        this.bytesPerSecond = bytesPerSecond;
+        // Outside a Boot context logback defaults to DEBUG, and logging every byte on the wire slows everything down.
+        ((Logger) LoggerFactory.getLogger("org.apache.http")).setLevel(Level.INFO);
+        ((Logger) LoggerFactory.getLogger("com.amazonaws")).setLevel(Level.INFO);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public AmazonS3 client() {
+        return AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                        "http://127.0.0.1:" + server.getAddress().getPort(), "eu-west-2"))
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("x", "y")))
+                .withClientConfiguration(new ClientConfiguration().withMaxErrorRetry(0))
+                .withPathStyleAccessEnabled(true)
+                .disableChunkedEncoding()
+                .build();
+    }
+
+    /**
+     * Makes the next {@code times} attempts at the given part fail with a 500.
+     */
+    public void failPart(int partNumber, int times) {
+        partFailures.put(partNumber, new AtomicInteger(times));
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String key = exchange.getRequestURI().getPath().substring(BUCKET.length() + 2);
+            Map<String, String> query = query(exchange.getRequestURI());
+            String method = exchange.getRequestMethod();
+            if (method.equals("POST") && query.containsKey("uploads")) {
+                String uploadId = "upload-" + key;
+                uploads.put(uploadId, new ConcurrentHashMap<>());
+                respond(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                        + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if (method.equals("PUT") && query.containsKey("partNumber")) {
+                int partNumber = Integer.parseInt(query.get("partNumber"));
+                byte[] part = read(exchange.getRequestBody());
+                partAttempts.computeIfAbsent(partNumber, number -> new AtomicInteger()).incrementAndGet();
+                if (partFailures.getOrDefault(partNumber, new AtomicInteger()).getAndDecrement() > 0) {
+                    respond(exchange, 500, "<Error><Code>InternalError</Code><Message>injected</Message></Error>");
+                    return;
+                }
+                Map<Integer, byte[]> upload = uploads.get(query.get("uploadId"));
+                if (upload == null) {
+                    partsAfterAbort.incrementAndGet();
+                    respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                    return;
+                }
+                upload.put(partNumber, part);
+                exchange.getResponseHeaders().add("ETag", etag(part));
+                respond(exchange, 200, "");
+            } else if (method.equals("POST") && query.containsKey("uploadId")) {
+                Matcher partNumbers = PART_NUMBER.matcher(new String(read(exchange.getRequestBody()),
+                        StandardCharsets.UTF_8));
+                Map<Integer, byte[]> upload = uploads.remove(query.get("uploadId"));
+                ByteArrayOutputStream object = new ByteArrayOutputStream();
+                while (partNumbers.find()) {
+                    int partNumber = Integer.parseInt(partNumbers.group(1));
+                    completedParts.add(partNumber);
+                    object.writeBytes(upload.get(partNumber));
+                }
+                objects.put(key, object.toByteArray());
+                respond(exchange, 200, "<CompleteMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                        + "</Key><ETag>" + etag(object.toByteArray()) + "</ETag></CompleteMultipartUploadResult>");
+            } else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+                uploads.remove(query.get("uploadId"));
+                aborted.add(query.get("uploadId"));
+                respond(exchange, 204, "");
+            } else if (method.equals("PUT")) {
+                byte[] object = read(exchange.getRequestBody());
+                objects.put(key, object);
+                exchange.getResponseHeaders().add("ETag", etag(object));
+                respond(exchange, 200, "");
+            } else {
+                respond(exchange, 400, "<Error><Code>NotImplemented</Code></Error>");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] read(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        long start = System.nanoTime();
+        for (int read; (read = body.read(buffer)) != -1; ) {
+            bytes.write(buffer, 0, read);
+            if (bytesPerSecond <= 0)
+                continue;
+            long dueNanos = bytes.size() * 1_000_000_000L / bytesPerSecond - (System.nanoTime() - start);
+            if (dueNanos > 0) {
+                try {
+                    Thread.sleep(dueNanos / 1_000_000, (int) (dueNanos % 1_000_000));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0)
+            exchange.getResponseBody().write(bytes);
+    }
+
+    private static String etag(byte[] bytes) {
+        return "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> query = new TreeMap<>();
+        if (uri.getRawQuery() == null)
+            return query;
+        for (String pair : uri.getRawQuery().split("&")) {
+            int equals = pair.indexOf('=');
+            query.put(equals < 0 ? pair : pair.substring(0, equals), equals < 0 ? "" : pair.substring(equals + 1));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.PropertyServer.TestUtils;
+
+import com.example.PropertyServer.Agent.AgentPortfolios;
+import com.example.PropertyServer.Property.Property;
+import com.example.PropertyServer.Repositories.IdReservations;
+import com.example.PropertyServer.Repositories.PropertySearchRepository;
+import com.example.PropertyServer.Search.Gazetteer;
+import com.example.PropertyServer.Search.PropertySearchIndex;
+import com.example.PropertyServer.Search.SearchResultCache;
+import com.example.PropertyServer.Services.ImagePipeline;
+import com.example.PropertyServer.Services.ImageResizer;
+import com.example.PropertyServer.Services.ParallelUploader;
+import com.example.PropertyServer.Services.S3Service;
+import com.example.PropertyServer.Services.SavedSearchService;
+import com.example.PropertyServer.SpecificationBuilders.RentalPropertySpecificationBuilder;
+import com.example.PropertyServer.SpecificationBuilders.SalePropertySpecificationBuilder;
+import com.example.PropertyServer.SpecificationBuilders.SpecificationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+/**
+ * Mocks every collaborator of PropertyService and AgentService that a @DataJpaTest slice does not provide, so those
+ * tests run the services against real repositories. Import it and autowire a mock where a test needs to stub it.
+ */
+@TestConfiguration
+public class MockedServiceCollaborators {
+
+    @MockBean
+    SpecificationBuilder<Property> specificationBuilder;
+
+    @MockBean
+    RentalPropertySpecificationBuilder rentalPropertySpecificationBuilder;
+
+    @MockBean
+    SalePropertySpecificationBuilder salePropertySpecificationBuilder;
+
+    @MockBean
+    PropertySearchRepository propertySearchRepository;
+
+    @MockBean
+    PropertySearchIndex propertySearchIndex;
+
+    @MockBean
+    Gazetteer gazetteer;
+
+    @MockBean
+    SearchResultCache searchResultCache;
+
+    @MockBean
+    SavedSearchService savedSearchService;
+
+    @MockBean
+    AgentPortfolios agentPortfolios;
+
+    @MockBean
+    IdReservations idReservations;
+
+    @MockBean
+    S3Service s3Service;
+
+    @MockBean
+    ImagePipeline imagePipeline;
+
+    @MockBean
+    ParallelUploader parallelUploader;
+
+    @MockBean
+    ImageResizer imageResizer;
+}
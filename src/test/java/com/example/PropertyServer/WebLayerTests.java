@@ -3,6 +3,8 @@ package com.example.PropertyServer;
 import com.example.PropertyServer.Agent.Agent;
 import com.example.PropertyServer.Exceptions.AgentNotFoundException;
 import com.example.PropertyServer.Exceptions.PropertyNotFoundException;
+import com.example.PropertyServer.Pagination.CursorPage;
+import com.example.PropertyServer.Property.ImageUploadStatus;
 import com.example.PropertyServer.Property.Property;
 import com.example.PropertyServer.Property.RentalProperty;
 import com.example.PropertyServer.Property.SaleProperty;
@@ -10,11 +12,16 @@ import com.example.PropertyServer.Repositories.AgentRepository;
 import com.example.PropertyServer.Repositories.PropertyBaseRepository;
 import com.example.PropertyServer.Repositories.RentalPropertyRepository;
 import com.example.PropertyServer.Repositories.SalePropertyRepository;
+import com.example.PropertyServer.Search.SavedSearch;
+import com.example.PropertyServer.Search.SearchAdmission;
 import com.example.PropertyServer.Services.AgentService;
+import com.example.PropertyServer.Services.PropertyImportService;
 import com.example.PropertyServer.Services.PropertyService;
+import com.example.PropertyServer.Services.SavedSearchService;
 import com.example.PropertyServer.TestUtils.RentalPropertyMatcher;
 import com.example.PropertyServer.TestUtils.TestUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -22,10 +29,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.multipart.MultipartFile;
@@ -49,12 +60,17 @@ import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
 @WebMvcTest
+@Import(SearchAdmission.class)
 public class WebLayerTests {
 
     @MockBean
@@ -73,9 +89,18 @@ public class WebLayerTests {
     @MockBean
     private AgentService agentService;
 
+    @MockBean
+    private SavedSearchService savedSearchService;
+
+    @MockBean
+    private PropertyImportService propertyImportService;
+
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    SearchAdmission searchAdmission;
+
     @Captor
     ArgumentCaptor<Map<String, String>> mapCaptor;
 
@@ -117,6 +142,7 @@ public class WebLayerTests {
 
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add(KEY, VALUE);
+        params.add("unpaged", "true");
 
         mockMvc.perform(get("/properties").queryParams(params))
                 .andDo(print())
@@ -134,6 +160,7 @@ public class WebLayerTests {
 
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add(KEY, VALUE);
+        params.add("unpaged", "true");
 
         mockMvc.perform(get("/rentalProperties").queryParams(params))
                 .andDo(print())
@@ -152,6 +179,7 @@ public class WebLayerTests {
 
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add(KEY,VALUE);
+        params.add("unpaged", "true");
 
         mockMvc.perform(get("/saleProperties").queryParams(params))
                 .andDo(print())
@@ -179,6 +207,7 @@ public class WebLayerTests {
         Agent agent = initAgent().build();
         agent.setId(1);
         RentalProperty property = initRentalProperty(agent).build();
+        property.setId(7);
         List<MockMultipartFile> files = Arrays.asList(buildImageMultiPart(), buildImageMultiPart(),
                 buildImageMultiPart());
         when(propertyService.createRentalProperty(any(), anyInt(), any())).thenReturn(property);
@@ -187,7 +216,8 @@ public class WebLayerTests {
                 .file(files.get(0)).file(files.get(1)).file(files.get(0))
                 .file(buildPropertyMultiPart(property)).with(csrf()))
                 .andDo(print())
-                .andExpect(status().isCreated())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, Matchers.endsWith("/properties/" + property.getId() + "/images/status")))
                 .andExpect(content().json(mapper.writeValueAsString(property)));
 
         verify(propertyService, times(1)).createRentalProperty(
@@ -206,6 +236,7 @@ public class WebLayerTests {
         Agent agent = initAgent().build();
         agent.setId(1);
         SaleProperty property = initSaleProperty(agent).build();
+        property.setId(7);
 
         when(propertyService.createSaleProperty(any(SaleProperty.class), eq(agent.getId()), any(MultipartFile[].class)))
                 .thenReturn(property);
@@ -216,7 +247,8 @@ public class WebLayerTests {
         mockMvc.perform(multipart("/agents/" + agent.getId() + "/properties/sales")
                 .file(buildPropertyMultiPart(property))
                 .file(files.get(0)).file(files.get(0)).file(files.get(0)).with(csrf()))
-                .andExpect(status().isCreated())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, Matchers.endsWith("/properties/" + property.getId() + "/images/status")))
                 .andExpect(content().json(mapper.writeValueAsString(property)));
 
         verify(propertyService).createSaleProperty(saleCaptor.capture(), eq(agent.getId()), fileCaptor.capture());
@@ -233,6 +265,20 @@ public class WebLayerTests {
         assertArrayEquals(fileCaptor.getValue()[2].getBytes(), files.get(2).getBytes());
     }
 
+    @Test
+    public void getImageStatus() throws Exception {
+        ImageUploadStatus status = new ImageUploadStatus(1, 3);
+        status.started();
+        status.uploaded();
+        when(propertyService.getImageStatus(1)).thenReturn(status);
+
+        mockMvc.perform(get("/properties/1/images/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("UPLOADING")))
+                .andExpect(jsonPath("$.uploaded", is(1)))
+                .andExpect(jsonPath("$.total", is(3)));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     public void createAgent() throws Exception {
@@ -501,11 +547,13 @@ public class WebLayerTests {
         List<Property> properties = Arrays.asList(initRentalProperty(initAgent().build()).build(),
                 initRentalProperty(initAgent().build()).build(), initRentalProperty(initAgent().build()).build());
 
-        when(propertyService.getAllProperties(eq(params.toSingleValueMap()))).thenReturn(properties);
+        CursorPage<Property> page = new CursorPage<>(properties, null);
+
+        when(propertyService.getAllProperties(eq(params.toSingleValueMap()), eq(50), isNull(), isNull())).thenReturn(page);
 
         mockMvc.perform(get("/properties").queryParams(params))
                 .andDo(print())
-                .andExpect(content().json(mapper.writeValueAsString(properties)));
+                .andExpect(content().json(mapper.writeValueAsString(page)));
     }
 
     @Test
@@ -515,12 +563,14 @@ public class WebLayerTests {
         List<RentalProperty> properties = Arrays.asList(initRentalProperty(agent).build(),
                 initRentalProperty(agent).build(), initRentalProperty(agent).build());
 
-        when(propertyService.getAllRentalProperties(eq(params.toSingleValueMap()))).thenReturn(properties);
+        CursorPage<RentalProperty> page = new CursorPage<>(properties, null);
+
+        when(propertyService.getAllRentalProperties(eq(params.toSingleValueMap()), eq(50), isNull(), isNull())).thenReturn(page);
 
         mockMvc.perform(get("/rentalProperties").queryParams(params))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(content().json(mapper.writeValueAsString(properties)));
+                .andExpect(content().json(mapper.writeValueAsString(page)));
     }
 
     @Test
@@ -530,12 +580,14 @@ public class WebLayerTests {
         List<SaleProperty> properties = Arrays.asList(initSaleProperty(agent).build(),
                 initSaleProperty(agent).build(), initSaleProperty(agent).build());
 
-        when(propertyService.getAllSaleProperties(eq(params.toSingleValueMap()))).thenReturn(properties);
+        CursorPage<SaleProperty> page = new CursorPage<>(properties, null);
+
+        when(propertyService.getAllSaleProperties(eq(params.toSingleValueMap()), eq(50), isNull(), isNull())).thenReturn(page);
 
         mockMvc.perform(get("/saleProperties").queryParams(params))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(content().json(mapper.writeValueAsString(properties)));
+                .andExpect(content().json(mapper.writeValueAsString(page)));
 
     }
 
@@ -550,7 +602,7 @@ public class WebLayerTests {
                 .with(httpBasic(USERNAME, PASSWORD))
                 .with(csrf()))
                 .andDo(print())
-                .andExpect(status().isCreated());
+                .andExpect(status().isAccepted());
     }
 
     @Test
@@ -564,7 +616,7 @@ public class WebLayerTests {
                 .with(httpBasic(USERNAME, PASSWORD))
                 .with(csrf()))
                 .andDo(print())
-                .andExpect(status().isCreated());
+                .andExpect(status().isAccepted());
     }
 
     @Test
@@ -594,6 +646,233 @@ public class WebLayerTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void savedSearchesCanBeRegisteredAndDeletedWithoutCredentials() throws Exception {
+        SavedSearch search = new SavedSearch(SavedSearch.RENTAL_PROPERTIES, Map.of("city", "York"));
+        search.setId(1);
+        search.setOwnerToken("secret");
+        when(savedSearchService.register(any(), anyString())).thenReturn(search);
+
+        mockMvc.perform(post("/searches").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(search)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("X-Search-Token", "secret"))
+                .andExpect(jsonPath("$.ownerToken").doesNotExist());
+        mockMvc.perform(delete("/searches/1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/searches/1").header("X-Search-Token", "secret"))
+                .andExpect(status().isNoContent());
+
+        verify(savedSearchService).deleteSearch(1, "secret");
+    }
+
+    @Test
+    public void listingChangesStillRequireCredentials() throws Exception {
+        mockMvc.perform(multipart("/agents").file(buildLogoMultiPart()).with(csrf()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(multipart("/properties/1/images").file(buildImageMultiPart())
+                .with(request -> {request.setMethod("PATCH"); return request;})
+                .with(csrf()))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(agentService, propertyService);
+    }
+
+    @Test
+    public void pagedPropertiesStripPagingParametersAndCapLimit() throws Exception {
+        List<Property> properties = Arrays.asList(initRentalProperty(initAgent().build()).build());
+        CursorPage<Property> page = new CursorPage<>(properties, "next");
+        when(propertyService.getAllProperties(anyMap(), anyInt(), any(), any())).thenReturn(page);
+
+        mockMvc.perform(get("/properties").param(KEY, VALUE).param("limit", "100000").param("after", "cursor"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next", equalTo("next")))
+                .andExpect(jsonPath("$.content.length()", equalTo(1)));
+
+        verify(propertyService).getAllProperties(mapCaptor.capture(), eq(500), eq("cursor"), isNull());
+        assertThat(mapCaptor.getValue(), hasEntry(KEY, VALUE));
+        assertThat(mapCaptor.getValue(), not(hasKey("limit")));
+        assertThat(mapCaptor.getValue(), not(hasKey("after")));
+    }
+
+    @Test
+    public void nearSearchUsesRadiusOrDefault() throws Exception {
+        when(propertyService.getAllRentalPropertiesNear(anyMap(), anyString(), anyDouble(), anyInt(), any()))
+                .thenReturn(new CursorPage<>(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/rentalProperties").param("near", "YO7 8NY").param("radius", "2.5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rentalProperties").param("near", "YO7 8NY"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rentalProperties").param("near", "YO7 8NY").param("radius", "1000"))
+                .andExpect(status().isBadRequest());
+
+        verify(propertyService).getAllRentalPropertiesNear(mapCaptor.capture(), eq("YO7 8NY"), eq(2.5), eq(50), isNull());
+        assertThat(mapCaptor.getValue(), not(hasKey("near")));
+        assertThat(mapCaptor.getValue(), not(hasKey("radius")));
+        verify(propertyService).getAllRentalPropertiesNear(anyMap(), eq("YO7 8NY"), eq(5.0), eq(50), isNull());
+    }
+
+    @Test
+    public void textSearchPassesQueryAndStructuredFilters() throws Exception {
+        when(propertyService.getAllSalePropertiesMatching(anyMap(), anyString(), anyInt(), any()))
+                .thenReturn(new CursorPage<>(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/saleProperties").param("q", "harley york").param(KEY, VALUE))
+                .andExpect(status().isOk());
+
+        verify(propertyService).getAllSalePropertiesMatching(mapCaptor.capture(), eq("harley york"), eq(50), isNull());
+        assertThat(mapCaptor.getValue(), hasEntry(KEY, VALUE));
+        assertThat(mapCaptor.getValue(), not(hasKey("q")));
+    }
+
+    @Test
+    public void sortIsRejectedWhereTheModeHasItsOwnOrder() throws Exception {
+        mockMvc.perform(get("/saleProperties").param("q", "york").param("sort", "price"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("sort cannot be combined with q.")));
+        mockMvc.perform(get("/rentalProperties").param("near", "YO7 8NY").param("sort", "bedrooms"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/properties").param("fields", "id").param("sort", "bedrooms"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/properties").param("unpaged", "true").param("sort", "bedrooms"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/properties").param("sort", "bedrooms").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(propertyService);
+    }
+
+    @Test
+    public void countModesRejectRadiusSearch() throws Exception {
+        mockMvc.perform(get("/properties").param("count", "true").param("near", "BN1 6DH"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("near is not supported in count, exists or HEAD requests.")));
+        mockMvc.perform(get("/saleProperties").param("exists", "true").param("radius", "2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(head("/rentalProperties").param("near", "BN1 6DH"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(propertyService);
+    }
+
+    @Test
+    public void streamsAndFacetsRejectRadiusSearchAndFields() throws Exception {
+        mockMvc.perform(get("/properties").param("near", "BN1 6DH").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("near is not supported when streaming NDJSON.")));
+        mockMvc.perform(get("/saleProperties").param("fields", "id").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/properties/facets").param("near", "BN1 6DH").param("radius", "2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/properties/facets").param("fields", "id"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(propertyService);
+    }
+
+    @Test
+    public void textSearchIsRejectedInModesThatCannotApplyIt() throws Exception {
+        mockMvc.perform(get("/properties").param("q", "mill").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("q is not supported when streaming NDJSON.")));
+        mockMvc.perform(get("/properties/facets").param("q", "mill"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rentalProperties").param("count", "true").param("q", "mill"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/saleProperties").param("exists", "true").param("q", "mill"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(head("/properties").param("q", "mill"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(propertyService);
+    }
+
+    @Test
+    public void countModesReturnTotalCountHeader() throws Exception {
+        when(propertyService.countSaleProperties(anyMap())).thenReturn(42L);
+
+        mockMvc.perform(get("/saleProperties").param("count", "true").param(KEY, VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "42"))
+                .andExpect(jsonPath("$.count", equalTo(42)));
+        mockMvc.perform(head("/saleProperties").param(KEY, VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "42"));
+
+        verify(propertyService, times(2)).countSaleProperties(mapCaptor.capture());
+        assertThat(mapCaptor.getValue(), hasEntry(KEY, VALUE));
+        assertThat(mapCaptor.getValue(), not(hasKey("count")));
+        verify(propertyService, never()).getAllSaleProperties(anyMap(), anyInt(), any(), any());
+    }
+
+    @Test
+    public void existsModeReturnsFlag() throws Exception {
+        when(propertyService.existsProperties(anyMap())).thenReturn(true);
+
+        mockMvc.perform(get("/properties").param("exists", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exists", equalTo(true)));
+
+        verify(propertyService).existsProperties(Collections.emptyMap());
+    }
+
+    @Test
+    public void ndjsonStreamTakesItsAdmissionPermitWhileStreaming() throws Exception {
+        when(propertyRepository.count()).thenReturn(1_000_000L);
+        searchAdmission.refreshRowEstimate();
+        try {
+            SearchAdmission.Ticket first = searchAdmission.admit(Collections.emptyMap());
+            SearchAdmission.Ticket second = searchAdmission.admit(Collections.emptyMap());
+            MvcResult rejected = mockMvc.perform(get("/properties").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(rejected))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+            first.close();
+            second.close();
+
+            MvcResult streamed = mockMvc.perform(get("/properties").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(streamed))
+                    .andExpect(status().isOk());
+
+            assertEquals(0, searchAdmission.getStats().getRunning());
+            verify(propertyService).streamAllProperties(anyMap(), any());
+        } finally {
+            when(propertyRepository.count()).thenReturn(0L);
+            searchAdmission.refreshRowEstimate();
+        }
+    }
+
+    @Test
+    public void everySearchModeIsRejectedWhenTheExpensiveLaneIsFull() throws Exception {
+        when(propertyRepository.count()).thenReturn(1_000_000L);
+        searchAdmission.refreshRowEstimate();
+        SearchAdmission.Ticket first = searchAdmission.admit(Collections.emptyMap());
+        SearchAdmission.Ticket second = searchAdmission.admit(Collections.emptyMap());
+        try {
+            mockMvc.perform(get("/properties").param("near", "YO1 7HH"))
+                    .andExpect(status().isTooManyRequests());
+            mockMvc.perform(get("/rentalProperties").param("q", "garden"))
+                    .andExpect(status().isTooManyRequests());
+            mockMvc.perform(get("/saleProperties").param("count", "true"))
+                    .andExpect(status().isTooManyRequests());
+            mockMvc.perform(head("/properties"))
+                    .andExpect(status().isTooManyRequests());
+            mockMvc.perform(get("/rentalProperties").param("exists", "true"))
+                    .andExpect(status().isTooManyRequests());
+            verifyNoInteractions(propertyService);
+        } finally {
+            first.close();
+            second.close();
+            when(propertyRepository.count()).thenReturn(0L);
+            searchAdmission.refreshRowEstimate();
+        }
+    }
+
     private MultiValueMap<String, String> buildParams() {
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add("key", "value");